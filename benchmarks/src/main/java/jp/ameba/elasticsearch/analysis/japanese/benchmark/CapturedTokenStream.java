@@ -0,0 +1,129 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.BaseFormAttribute;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.PartOfSpeechAttribute;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.PartOfSpeechAttributeImpl;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * Replays the tokens captured from a tokenizer, so that token filters can
+ * be measured without the cost of the tokenizer.
+ * <p>
+ * The part of speech and base form attributes of the Kuromoji tokenizer are
+ * replayed as well.
+ *
+ * @author namura_suguru
+ */
+public class CapturedTokenStream extends TokenStream {
+
+	private final CharTermAttribute termAttr;
+
+	private final OffsetAttribute offsetAttr;
+
+	private final TypeAttribute typeAttr;
+
+	private final BaseFormAttribute baseFormAttr;
+
+	/** first token of each document, and the end */
+	private final int[] documents;
+
+	private final char[][] terms;
+
+	private final int[] offsets;
+
+	private final String[] types;
+
+	private final String[] baseForms;
+
+	private int index;
+
+	private int end;
+
+	/**
+	 * Captures the tokens of each document
+	 */
+	public CapturedTokenStream(Tokenizer tokenizer, String[] documents) throws IOException {
+		addAttributeImpl(new PartOfSpeechAttributeImpl());
+		this.termAttr = addAttribute(CharTermAttribute.class);
+		this.offsetAttr = addAttribute(OffsetAttribute.class);
+		this.typeAttr = addAttribute(TypeAttribute.class);
+		addAttribute(PartOfSpeechAttribute.class);
+		this.baseFormAttr = addAttribute(BaseFormAttribute.class);
+
+		CharTermAttribute term = tokenizer.addAttribute(CharTermAttribute.class);
+		OffsetAttribute offset = tokenizer.addAttribute(OffsetAttribute.class);
+		TypeAttribute type = tokenizer.addAttribute(TypeAttribute.class);
+		BaseFormAttribute baseForm = tokenizer.hasAttribute(BaseFormAttribute.class)
+				? tokenizer.getAttribute(BaseFormAttribute.class) : null;
+
+		List<char[]> terms = new ArrayList<char[]>();
+		List<Integer> offsets = new ArrayList<Integer>();
+		List<String> types = new ArrayList<String>();
+		List<String> baseForms = new ArrayList<String>();
+		this.documents = new int[documents.length + 1];
+		for (int i = 0; i < documents.length; i++) {
+			this.documents[i] = terms.size();
+			tokenizer.reset(new StringReader(documents[i]));
+			tokenizer.reset();
+			while (tokenizer.incrementToken()) {
+				char[] chars = new char[term.length()];
+				System.arraycopy(term.buffer(), 0, chars, 0, chars.length);
+				terms.add(chars);
+				offsets.add(offset.startOffset());
+				offsets.add(offset.endOffset());
+				types.add(type.type());
+				baseForms.add(baseForm == null ? null : baseForm.getBaseForm());
+			}
+			tokenizer.end();
+		}
+		this.documents[documents.length] = terms.size();
+
+		this.terms = terms.toArray(new char[terms.size()][]);
+		this.offsets = new int[offsets.size()];
+		for (int i = 0; i < this.offsets.length; i++) {
+			this.offsets[i] = offsets.get(i);
+		}
+		this.types = types.toArray(new String[types.size()]);
+		this.baseForms = baseForms.toArray(new String[baseForms.size()]);
+	}
+
+	/**
+	 * Selects the document replayed after the next reset
+	 */
+	public void document(int document) {
+		this.index = documents[document];
+		this.end = documents[document + 1];
+	}
+
+	/**
+	 * Returns the number of tokens of the document
+	 */
+	public int size(int document) {
+		return documents[document + 1] - documents[document];
+	}
+
+	@Override
+	public boolean incrementToken() throws IOException {
+		if (index >= end) {
+			return false;
+		}
+		clearAttributes();
+		termAttr.copyBuffer(terms[index], 0, terms[index].length);
+		offsetAttr.setOffset(offsets[index * 2], offsets[index * 2 + 1]);
+		typeAttr.setType(types[index]);
+		baseFormAttr.setBaseForm(baseForms[index]);
+		index++;
+		return true;
+	}
+
+}
@@ -0,0 +1,59 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Japanese documents bundled with the benchmarks.
+ * <p>
+ * The corpora were written for this project and are distributed under the
+ * same license. Each file holds documents separated by empty lines.
+ * <ul>
+ * <li>short : one line posts and titles</li>
+ * <li>medium : blog entry sized paragraphs</li>
+ * <li>long : articles longer than the tokenizer buffers</li>
+ * </ul>
+ *
+ * @author namura_suguru
+ */
+public class Corpus {
+
+	public static String[] load(String name) throws IOException {
+		InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".txt");
+		if (in == null) {
+			throw new IllegalArgumentException("unknown corpus [" + name + "]");
+		}
+		List<String> documents = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+		try {
+			StringBuilder document = new StringBuilder();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() == 0) {
+					add(documents, document);
+				} else {
+					if (document.length() > 0) {
+						document.append('\n');
+					}
+					document.append(line);
+				}
+			}
+			add(documents, document);
+		} finally {
+			reader.close();
+		}
+		return documents.toArray(new String[documents.size()]);
+	}
+
+	private static void add(List<String> documents, StringBuilder document) {
+		if (document.length() > 0) {
+			documents.add(document.toString());
+			document.setLength(0);
+		}
+	}
+
+}
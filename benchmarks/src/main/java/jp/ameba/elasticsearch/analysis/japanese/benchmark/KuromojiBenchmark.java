@@ -0,0 +1,186 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiAnalyzer;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiBaseFormFilter;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiKatakanaStemFilter;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiNormalizeFilter;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiTokenizer;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiTokenizerRegistry;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiTypeFilter;
+
+import org.apache.lucene.analysis.CharReader;
+import org.apache.lucene.analysis.TokenStream;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the Kuromoji analysis components, each on its own, and of
+ * the whole {@link KuromojiAnalyzer}.
+ * <p>
+ * One operation analyzes every document of the corpus. Token filters read
+ * from a {@link CapturedTokenStream}, so {@link #replay(TokenCounter)} is
+ * their baseline. The char filter counts the tokens the analyzer produces
+ * from the same text, so that its per token numbers compare with the others.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KuromojiBenchmark {
+
+	@Param({ "short", "medium", "long" })
+	public String corpus;
+
+	@Param({ "NORMAL", "SEARCH" })
+	public String mode;
+
+	private final char[] buffer = new char[4096];
+
+	private KuromojiTokenizerRegistry registry;
+
+	private KuromojiTokenizerRegistry.Entry entry;
+
+	private KuromojiAnalyzer analyzer;
+
+	private String[] documents;
+
+	/** documents passed through the char filter, as the tokenizer reads them */
+	private String[] normalized;
+
+	private int[] analyzedTokens;
+
+	private KuromojiTokenizer tokenizer;
+
+	private CapturedTokenStream captured;
+
+	private TokenStream typeFilter;
+
+	private TokenStream baseFormFilter;
+
+	private TokenStream katakanaStemFilter;
+
+	@Setup
+	public void setup() throws IOException {
+		registry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		entry = registry.acquire(Mode.valueOf(mode), true);
+		analyzer = new KuromojiAnalyzer(registry, true, Mode.valueOf(mode));
+
+		documents = Corpus.load(corpus);
+		normalized = new String[documents.length];
+		analyzedTokens = new int[documents.length];
+		for (int i = 0; i < documents.length; i++) {
+			normalized[i] = normalize(documents[i]);
+			analyzedTokens[i] = TokenStreams.consume(analyzer.reusableTokenStream("f", new StringReader(documents[i])));
+		}
+
+		tokenizer = new KuromojiTokenizer(entry.tokenizer(), new StringReader(""));
+		captured = new CapturedTokenStream(new KuromojiTokenizer(entry.tokenizer(), new StringReader("")), normalized);
+		typeFilter = new KuromojiTypeFilter(true, captured);
+		baseFormFilter = new KuromojiBaseFormFilter(captured);
+		katakanaStemFilter = new KuromojiKatakanaStemFilter(captured);
+	}
+
+	@TearDown
+	public void tearDown() {
+		analyzer.close();
+		registry.release(entry);
+	}
+
+	private String normalize(String document) throws IOException {
+		KuromojiNormalizeFilter filter = new KuromojiNormalizeFilter(CharReader.get(new StringReader(document)));
+		StringBuilder sb = new StringBuilder();
+		int length;
+		while ((length = filter.read(buffer, 0, buffer.length)) > 0) {
+			sb.append(buffer, 0, length);
+		}
+		return sb.toString();
+	}
+
+	@Benchmark
+	public int normalizeFilter(TokenCounter counter) throws IOException {
+		int end = 0;
+		for (int i = 0; i < documents.length; i++) {
+			KuromojiNormalizeFilter filter = new KuromojiNormalizeFilter(CharReader.get(new StringReader(documents[i])));
+			int chars = 0;
+			int length;
+			while ((length = filter.read(buffer, 0, buffer.length)) > 0) {
+				chars += length;
+			}
+			// the end offset, as the tokenizer corrects it
+			end += filter.correctOffset(chars);
+			counter.tokens += analyzedTokens[i];
+		}
+		return end;
+	}
+
+	@Benchmark
+	public int tokenizer(TokenCounter counter) throws IOException {
+		int count = 0;
+		for (String document : normalized) {
+			tokenizer.reset(new StringReader(document));
+			count += TokenStreams.consume(tokenizer);
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+	@Benchmark
+	public int replay(TokenCounter counter) throws IOException {
+		return filter(captured, counter);
+	}
+
+	@Benchmark
+	public int typeFilter(TokenCounter counter) throws IOException {
+		return filter(typeFilter, counter);
+	}
+
+	@Benchmark
+	public int baseFormFilter(TokenCounter counter) throws IOException {
+		return filter(baseFormFilter, counter);
+	}
+
+	@Benchmark
+	public int katakanaStemFilter(TokenCounter counter) throws IOException {
+		return filter(katakanaStemFilter, counter);
+	}
+
+	private int filter(TokenStream filter, TokenCounter counter) throws IOException {
+		int count = 0;
+		for (int i = 0; i < normalized.length; i++) {
+			captured.document(i);
+			count += TokenStreams.consume(filter);
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+	@Benchmark
+	public int analyzer(TokenCounter counter) throws IOException {
+		int count = 0;
+		for (String document : documents) {
+			count += TokenStreams.consume(analyzer.reusableTokenStream("f", new StringReader(document)));
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+}
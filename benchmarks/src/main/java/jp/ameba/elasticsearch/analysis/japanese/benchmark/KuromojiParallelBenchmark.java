@@ -0,0 +1,98 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiParallelPool;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiTokenizer;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiTokenizerRegistry;
+
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the tokenizer on a single document made of the whole corpus
+ * repeated, segmented by the calling thread alone or on a parallel pool.
+ * <p>
+ * With 0 threads the document is segmented sequentially. Documents shorter
+ * than the parallel threshold are not segmented in parallel, but they show
+ * what reading them in larger chunks costs, with <code>-prof gc</code>.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KuromojiParallelBenchmark {
+
+	@Param({ "16384", "1048576" })
+	public int length;
+
+	@Param({ "0", "1", "2", "4" })
+	public int threads;
+
+	private KuromojiTokenizerRegistry registry;
+
+	private KuromojiTokenizerRegistry.Entry entry;
+
+	private KuromojiParallelPool pool;
+
+	private KuromojiTokenizer tokenizer;
+
+	private String document;
+
+	@Setup
+	public void setup() throws IOException {
+		registry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		entry = registry.acquire(Mode.SEARCH, true);
+		KuromojiParallelPool.Parallelism parallel = null;
+		if (threads > 0) {
+			pool = new KuromojiParallelPool(ImmutableSettings.settingsBuilder().put("japanese.parallel.threads", threads).build());
+			parallel = pool.parallelism(ImmutableSettings.settingsBuilder().put("parallel.enabled", true).build());
+		}
+		tokenizer = new KuromojiTokenizer(entry.tokenizer(), null, parallel, new StringReader(""));
+
+		StringBuilder sb = new StringBuilder(length);
+		while (sb.length() < length) {
+			for (String name : new String[] { "short", "medium", "long" }) {
+				for (String text : Corpus.load(name)) {
+					sb.append(text).append('\n');
+				}
+			}
+		}
+		sb.setLength(length);
+		document = sb.toString();
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pool != null) {
+			pool.close();
+		}
+		registry.release(entry);
+	}
+
+	@Benchmark
+	public int tokenizer(TokenCounter counter) throws IOException {
+		tokenizer.reset(new StringReader(document));
+		int count = TokenStreams.consume(tokenizer);
+		counter.tokens += count;
+		return count;
+	}
+
+}
@@ -0,0 +1,67 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler and reports per token numbers.
+ * <p>
+ * Accepts the usual JMH command line, for example
+ * <code>java -jar target/benchmarks.jar Kuromoji -p corpus=long</code>.
+ * <ul>
+ * <li>tokens/s : the "tokens" counter of {@link TokenCounter}</li>
+ * <li>ns/token : 1e9 / tokens/s</li>
+ * <li>B/token : allocated bytes per operation * ops/s / tokens/s</li>
+ * </ul>
+ *
+ * @author namura_suguru
+ */
+public class PerTokenReport {
+
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		Collection<RunResult> results = new Runner(options).run();
+
+		System.out.println();
+		System.out.println(String.format("%-40s %-20s %14s %10s %10s",
+				"Benchmark", "Params", "tokens/s", "ns/token", "B/token"));
+		for (RunResult result : results) {
+			BenchmarkParams params = result.getParams();
+			String benchmark = params.getBenchmark();
+			// class and method names only
+			benchmark = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+			Map<String, Result> secondary = result.getSecondaryResults();
+			Result tokens = secondary.get("tokens");
+			Result allocated = secondary.get("\u00b7gc.alloc.rate.norm");
+			if (tokens == null || tokens.getScore() == 0) {
+				continue;
+			}
+			double tokensPerSecond = tokens.getScore();
+			double opsPerSecond = result.getPrimaryResult().getScore();
+			double bytesPerToken = allocated == null ? Double.NaN
+					: allocated.getScore() * opsPerSecond / tokensPerSecond;
+			StringBuilder values = new StringBuilder();
+			for (String key : params.getParamsKeys()) {
+				if (values.length() > 0) {
+					values.append(',');
+				}
+				values.append(params.getParam(key));
+			}
+			System.out.println(String.format("%-40s %-20s %14.0f %10.1f %10.1f",
+					benchmark, values, tokensPerSecond, 1e9 / tokensPerSecond, bytesPerToken));
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import jp.ameba.elasticsearch.analysis.japanese.util.BreakIteratorSentenceBreaker;
+import jp.ameba.elasticsearch.analysis.japanese.util.JapaneseSentenceBreaker;
+import jp.ameba.elasticsearch.analysis.japanese.util.SentenceBreaker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the sentence breakers, finding every sentence of the
+ * documents of the corpus.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentenceBreakerBenchmark {
+
+	@Param({ "short", "medium", "long" })
+	public String corpus;
+
+	private char[][] documents;
+
+	private SentenceBreaker japanese;
+
+	private SentenceBreaker breakIterator;
+
+	@Setup
+	public void setup() throws IOException {
+		String[] texts = Corpus.load(corpus);
+		documents = new char[texts.length][];
+		for (int i = 0; i < texts.length; i++) {
+			documents[i] = texts[i].toCharArray();
+		}
+		japanese = new JapaneseSentenceBreaker();
+		breakIterator = new BreakIteratorSentenceBreaker(BreakIterator.getSentenceInstance(Locale.JAPAN));
+	}
+
+	@Benchmark
+	public int japanese() {
+		return sentences(japanese);
+	}
+
+	@Benchmark
+	public int breakIterator() {
+		return sentences(breakIterator);
+	}
+
+	private int sentences(SentenceBreaker breaker) {
+		int count = 0;
+		for (char[] document : documents) {
+			breaker.setText(document, 0, document.length);
+			while (breaker.next() != SentenceBreaker.DONE) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
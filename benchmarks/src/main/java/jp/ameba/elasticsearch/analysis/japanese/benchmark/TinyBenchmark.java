@@ -0,0 +1,141 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jp.ameba.elasticsearch.analysis.japanese.tiny.CJKWidthCharFilter;
+import jp.ameba.elasticsearch.analysis.japanese.tiny.CJKWidthFilter;
+import jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseAnalyzer;
+import jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseKatakanaStemFilter;
+import jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseTokenizer;
+
+import org.apache.lucene.analysis.CharReader;
+import org.apache.lucene.analysis.TokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the TinySegmenter analysis components, each on its own, and
+ * of the whole {@link TinyJapaneseAnalyzer}.
+ * <p>
+ * One operation analyzes every document of the corpus. Token filters read
+ * from a {@link CapturedTokenStream}, so {@link #replay(TokenCounter)} is
+ * their baseline.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TinyBenchmark {
+
+	@Param({ "short", "medium", "long" })
+	public String corpus;
+
+	private TinyJapaneseAnalyzer analyzer;
+
+	private String[] documents;
+
+	private int[] analyzedTokens;
+
+	private final char[] buffer = new char[4096];
+
+	private TinyJapaneseTokenizer tokenizer;
+
+	private CapturedTokenStream captured;
+
+	private TokenStream widthFilter;
+
+	private TokenStream katakanaStemFilter;
+
+	@Setup
+	public void setup() throws IOException {
+		analyzer = new TinyJapaneseAnalyzer();
+		documents = Corpus.load(corpus);
+		analyzedTokens = new int[documents.length];
+		for (int i = 0; i < documents.length; i++) {
+			analyzedTokens[i] = TokenStreams.consume(analyzer.reusableTokenStream("f", new StringReader(documents[i])));
+		}
+		tokenizer = new TinyJapaneseTokenizer(new StringReader(""));
+		captured = new CapturedTokenStream(new TinyJapaneseTokenizer(new StringReader("")), documents);
+		widthFilter = new CJKWidthFilter(captured);
+		katakanaStemFilter = new TinyJapaneseKatakanaStemFilter(captured);
+	}
+
+	@Benchmark
+	public int tokenizer(TokenCounter counter) throws IOException {
+		int count = 0;
+		for (String document : documents) {
+			tokenizer.reset(new StringReader(document));
+			count += TokenStreams.consume(tokenizer);
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+	@Benchmark
+	public int replay(TokenCounter counter) throws IOException {
+		return filter(captured, counter);
+	}
+
+	@Benchmark
+	public int widthFilter(TokenCounter counter) throws IOException {
+		return filter(widthFilter, counter);
+	}
+
+	@Benchmark
+	public int widthCharFilter(TokenCounter counter) throws IOException {
+		int end = 0;
+		for (int i = 0; i < documents.length; i++) {
+			CJKWidthCharFilter filter = new CJKWidthCharFilter(CharReader.get(new StringReader(documents[i])));
+			int chars = 0;
+			int length;
+			while ((length = filter.read(buffer, 0, buffer.length)) > 0) {
+				chars += length;
+			}
+			// the end offset, as the tokenizer corrects it
+			end += filter.correctOffset(chars);
+			counter.tokens += analyzedTokens[i];
+		}
+		return end;
+	}
+
+	@Benchmark
+	public int katakanaStemFilter(TokenCounter counter) throws IOException {
+		return filter(katakanaStemFilter, counter);
+	}
+
+	private int filter(TokenStream filter, TokenCounter counter) throws IOException {
+		int count = 0;
+		for (int i = 0; i < documents.length; i++) {
+			captured.document(i);
+			count += TokenStreams.consume(filter);
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+	@Benchmark
+	public int analyzer(TokenCounter counter) throws IOException {
+		int count = 0;
+		for (String document : documents) {
+			count += TokenStreams.consume(analyzer.reusableTokenStream("f", new StringReader(document)));
+		}
+		counter.tokens += count;
+		return count;
+	}
+
+}
@@ -0,0 +1,26 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the tokens produced by a benchmark, reported by JMH as a rate
+ * next to the operations, that is tokens/sec in throughput mode.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class TokenCounter {
+
+	public long tokens;
+
+	@Setup(Level.Iteration)
+	public void clear() {
+		tokens = 0;
+	}
+
+}
@@ -0,0 +1,27 @@
+package jp.ameba.elasticsearch.analysis.japanese.benchmark;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenStream;
+
+/**
+ * Helpers to consume token streams like the indexer does
+ *
+ * @author namura_suguru
+ */
+public class TokenStreams {
+
+	/**
+	 * Consumes the stream and returns the number of tokens
+	 */
+	public static int consume(TokenStream stream) throws IOException {
+		int count = 0;
+		stream.reset();
+		while (stream.incrementToken()) {
+			count++;
+		}
+		stream.end();
+		return count;
+	}
+
+}
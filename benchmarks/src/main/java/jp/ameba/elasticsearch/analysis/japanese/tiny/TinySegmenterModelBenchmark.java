@@ -0,0 +1,119 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseSegmenterConstants.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import jp.ameba.elasticsearch.analysis.japanese.benchmark.Corpus;
+
+import org.elasticsearch.common.io.Streams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the lookups of the weights of the built-in TinySegmenter model,
+ * scoring every position of the corpus with the character and the category
+ * features, the classification of the characters, and the decoding of the
+ * model.
+ * <p>
+ * Lives in the package of the tokenizer, as the character categories are
+ * package private.
+ *
+ * @author namura_suguru
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TinySegmenterModelBenchmark {
+
+	@Param({ "long" })
+	public String corpus;
+
+	private TinySegmenterModel m;
+
+	private byte[] model;
+
+	private int[] chars;
+
+	private int[] types;
+
+	@Setup
+	public void setup() throws IOException {
+		m = TinySegmenterModel.defaultModel();
+		InputStream in = TinySegmenterModel.class.getResourceAsStream("tinysegmenter.model");
+		model = Streams.copyToByteArray(in);
+		StringBuilder sb = new StringBuilder();
+		for (String document : Corpus.load(corpus)) {
+			sb.append(document);
+		}
+		chars = new int[sb.length()];
+		types = new int[sb.length()];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = sb.charAt(i);
+			types[i] = charType(chars[i]);
+		}
+	}
+
+	@Benchmark
+	public int characterWeights() {
+		int score = 0;
+		for (int i = 3; i < chars.length - 2; i++) {
+			final int c1 = chars[i-3], c2 = chars[i-2], c3 = chars[i-1], c4 = chars[i], c5 = chars[i+1], c6 = chars[i+2];
+			score += m.uw1(c1) + m.uw2(c2) + m.uw3(c3) + m.uw4(c4) + m.uw5(c5) + m.uw6(c6)
+				+ m.bw1(c2, c3) + m.bw2(c3, c4) + m.bw3(c4, c5)
+				+ m.tw1(c1, c2, c3) + m.tw2(c2, c3, c4) + m.tw3(c3, c4, c5) + m.tw4(c4, c5, c6);
+		}
+		return score;
+	}
+
+	@Benchmark
+	public int charTypes() {
+		int sum = 0;
+		for (int i = 0; i < chars.length; i++) {
+			sum += charType(chars[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int categoryWeights() {
+		int score = 0;
+		int p1 = PU, p2 = PU, p3 = PU;
+		for (int i = 3; i < types.length - 2; i++) {
+			final int t1 = types[i-3], t2 = types[i-2], t3 = types[i-1], t4 = types[i], t5 = types[i+1], t6 = types[i+2];
+			final int s = m.up1(p1) + m.up2(p2) + m.up3(p3) + m.bp1(p1, p2) + m.bp2(p2, p3)
+				+ m.uc1(t1) + m.uc2(t2) + m.uc3(t3) + m.uc4(t4) + m.uc5(t5) + m.uc6(t6)
+				+ m.bc1(t2, t3) + m.bc2(t3, t4) + m.bc3(t4, t5)
+				+ m.tc1(t1, t2, t3) + m.tc2(t2, t3, t4) + m.tc3(t3, t4, t5) + m.tc4(t4, t5, t6)
+				+ m.uq1(p1, t1) + m.uq2(p2, t2) + m.uq3(p3, t3)
+				+ m.bq1(p2, t2, t3) + m.bq2(p2, t3, t4) + m.bq3(p3, t2, t3) + m.bq4(p3, t3, t4)
+				+ m.tq1(p2, t1, t2, t3) + m.tq2(p2, t2, t3, t4) + m.tq3(p3, t1, t2, t3) + m.tq4(p3, t2, t3, t4);
+			p1 = p2;
+			p2 = p3;
+			p3 = s > 0 ? PB : PO;
+			score += s;
+		}
+		return score;
+	}
+
+	@Benchmark
+	public TinySegmenterModel decode() throws IOException {
+		return TinySegmenterModel.read(ByteBuffer.wrap(model));
+	}
+
+}
@@ -0,0 +1,234 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.atilika.kuromoji.Token;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * Bounded LRU cache of analysis results, keyed by the normalized text.
+ * <p>
+ * Only the offsets and the Kuromoji tokens are kept, since the terms can
+ * be restored from the text itself. As for tokens being analyzed, their
+ * part of speech and base form are looked up when a filter reads them.
+ * <p>
+ * Clearing the cache starts a new generation: results analyzed before it
+ * are not cached, see {@link #generation()}.
+ *
+ * @author namura_suguru
+ */
+public class KuromojiAnalysisCache implements ToXContent {
+
+	/** estimated overhead of an entry, its key and its arrays */
+	private static final int ENTRY_OVERHEAD = 160;
+
+	/** estimated size of a token and of its surface form, without its chars */
+	private static final int TOKEN_OVERHEAD = 72;
+
+	private final long maxSizeInBytes;
+
+	private final int maxTextLength;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(64, 0.75f, true);
+
+	private long sizeInBytes = 0;
+
+	/** incremented when the cache is cleared */
+	private long generation = 0;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxSizeInBytes estimated size of the cache
+	 * @param maxTextLength texts longer than this are not cached
+	 */
+	public KuromojiAnalysisCache(long maxSizeInBytes, int maxTextLength) {
+		this.maxSizeInBytes = maxSizeInBytes;
+		this.maxTextLength = maxTextLength;
+	}
+
+	/**
+	 * Returns true if the analysis result of the text length can be cached.
+	 */
+	public boolean accept(int length) {
+		return length <= maxTextLength;
+	}
+
+	/**
+	 * Returns the cached analysis result of the text, or null
+	 */
+	public Entry get(String text) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(text);
+		}
+		if (entry == null) {
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the current generation, to be read before the tokenizer
+	 * analyzing a text to cache.
+	 */
+	public synchronized long generation() {
+		return generation;
+	}
+
+	/**
+	 * Caches the analysis result of the text, evicting least recently used
+	 * results over the size. Results of an older generation are stale, and
+	 * are dropped.
+	 */
+	public synchronized void put(String text, Recorder recorder, long generation) {
+		if (generation != this.generation || entries.containsKey(text)) {
+			return;
+		}
+		Entry entry = recorder.build();
+		entry.sizeInBytes = ENTRY_OVERHEAD + text.length() * 2 + entry.sizeInBytes();
+		if (entry.sizeInBytes > maxSizeInBytes) {
+			return;
+		}
+		entries.put(text, entry);
+		sizeInBytes += entry.sizeInBytes;
+		Iterator<Entry> it = entries.values().iterator();
+		while (sizeInBytes > maxSizeInBytes && it.hasNext()) {
+			sizeInBytes -= it.next().sizeInBytes;
+			it.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Drops every cached result, when they are stale.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		sizeInBytes = 0;
+		generation++;
+	}
+
+	public synchronized int count() {
+		return entries.size();
+	}
+
+	public synchronized long sizeInBytes() {
+		return sizeInBytes;
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	public long evictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		long hits = hits();
+		long misses = misses();
+		builder.field("count", count());
+		builder.field("size_in_bytes", sizeInBytes());
+		builder.field("hits", hits);
+		builder.field("misses", misses);
+		builder.field("evictions", evictions());
+		builder.field("hit_ratio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		return builder;
+	}
+
+	/**
+	 * Cached tokens of a text
+	 */
+	public static class Entry {
+
+		/** start and end offset of each token */
+		private final int[] offsets;
+
+		private final Token[] tokens;
+
+		private long sizeInBytes;
+
+		Entry(int[] offsets, Token[] tokens) {
+			this.offsets = offsets;
+			this.tokens = tokens;
+		}
+
+		public int size() {
+			return tokens.length;
+		}
+
+		public int startOffset(int index) {
+			return offsets[index * 2];
+		}
+
+		public int endOffset(int index) {
+			return offsets[index * 2 + 1];
+		}
+
+		/**
+		 * Returns the Kuromoji token, whose part of speech and base form
+		 * are those of the cached token
+		 */
+		public Token token(int index) {
+			return tokens[index];
+		}
+
+		private long sizeInBytes() {
+			long size = offsets.length * 4 + tokens.length * 8;
+			for (Token token : tokens) {
+				size += TOKEN_OVERHEAD + token.getSurfaceForm().length() * 2;
+			}
+			return size;
+		}
+
+	}
+
+	/**
+	 * Records the tokens of a text while it is analyzed
+	 */
+	public static class Recorder {
+
+		private int[] offsets = new int[32];
+
+		private final List<Token> tokens = new ArrayList<Token>();
+
+		public void add(int startOffset, int endOffset, Token token) {
+			int index = tokens.size() * 2;
+			if (index + 2 > offsets.length) {
+				int[] grown = new int[offsets.length * 2];
+				System.arraycopy(offsets, 0, grown, 0, offsets.length);
+				offsets = grown;
+			}
+			offsets[index] = startOffset;
+			offsets[index + 1] = endOffset;
+			tokens.add(token);
+		}
+
+		private Entry build() {
+			int size = tokens.size();
+			int[] offsets = new int[size * 2];
+			System.arraycopy(this.offsets, 0, offsets, 0, offsets.length);
+			return new Entry(offsets, tokens.toArray(new Token[size]));
+		}
+
+	}
+
+}
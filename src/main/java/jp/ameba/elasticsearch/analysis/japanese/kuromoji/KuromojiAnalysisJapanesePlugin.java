@@ -1,8 +1,16 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
+import java.util.Collection;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsModule;
+import jp.ameba.elasticsearch.analysis.japanese.stats.RestAnalysisStatsAction;
+
+import org.elasticsearch.common.collect.Lists;
+import org.elasticsearch.common.component.LifecycleComponent;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.index.analysis.AnalysisModule;
 import org.elasticsearch.plugins.AbstractPlugin;
+import org.elasticsearch.rest.RestModule;
 
 public class KuromojiAnalysisJapanesePlugin extends AbstractPlugin {
 
@@ -16,12 +24,31 @@ public class KuromojiAnalysisJapanesePlugin extends AbstractPlugin {
 		return "analysis-japanese";
 	}
 	
+	@Override
+	public Collection<Class<? extends Module>> modules() {
+		Collection<Class<? extends Module>> modules = Lists.newArrayList();
+		modules.add(KuromojiModule.class);
+		modules.add(AnalysisStatsModule.class);
+		return modules;
+	}
+	
+	@Override
+	@SuppressWarnings("rawtypes") // raw in the plugin interface
+	public Collection<Class<? extends LifecycleComponent>> services() {
+		Collection<Class<? extends LifecycleComponent>> services = Lists.newArrayList();
+		services.add(KuromojiParallelPool.class);
+		return services;
+	}
+	
 	@Override
 	public void processModule(Module module) {
 		if (module instanceof AnalysisModule) {
 			AnalysisModule analysisModule = (AnalysisModule) module;
 			analysisModule.addProcessor(new KuromojiAnalysisBindingProcessor());
 		}
+		if (module instanceof RestModule) {
+			((RestModule) module).addRestAction(RestAnalysisStatsAction.class);
+		}
 	}
 	
 }
@@ -1,28 +1,95 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.HashSet;
 import java.util.Set;
 
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStats;
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsFilter;
+
 import org.apache.lucene.analysis.CharReader;
 import org.apache.lucene.analysis.StopwordAnalyzerBase;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.util.Version;
-import org.atilika.kuromoji.Tokenizer;
 import org.atilika.kuromoji.Tokenizer.Mode;
 
 public class KuromojiAnalyzer extends StopwordAnalyzerBase {
 	
-	private Tokenizer tokenizer;
+	private final KuromojiTokenizerRegistry registry;
+	
+	private KuromojiTokenizerRegistry.Entry entry;
+	
+	private final KuromojiStopTags stopTags;
+	
+	private final KuromojiAnalysisCache cache;
+	
+	private final AnalysisStats stats;
+	
+	private final KuromojiParallelPool.Parallelism parallel;
 	
-	public KuromojiAnalyzer(boolean split, Mode mode) {
+	public KuromojiAnalyzer(KuromojiTokenizerRegistry registry, boolean split, Mode mode) {
+		this(registry, split, mode, KuromojiStopTags.defaults(), null, null, null);
+	}
+	
+	public KuromojiAnalyzer(
+			KuromojiTokenizerRegistry registry,
+			boolean split,
+			Mode mode,
+			KuromojiStopTags stopTags,
+			KuromojiAnalysisCache cache,
+			AnalysisStats stats,
+			KuromojiParallelPool.Parallelism parallel) {
+		this(registry, split, mode, stopTags, cache, stats, parallel, null);
+	}
+	
+	/**
+	 * @param userDictionary user dictionary file of the tokenizer, null if none
+	 */
+	public KuromojiAnalyzer(
+			KuromojiTokenizerRegistry registry,
+			boolean split,
+			Mode mode,
+			KuromojiStopTags stopTags,
+			KuromojiAnalysisCache cache,
+			AnalysisStats stats,
+			KuromojiParallelPool.Parallelism parallel,
+			File userDictionary) {
 		super(Version.LUCENE_35, stopWords());
-		this.tokenizer = Tokenizer
-				.builder()
-				.mode(mode)
-				.split(split)
-				.build();
+		this.registry = registry;
+		try {
+			this.entry = registry.acquire(mode, split, userDictionary);
+		} catch (RuntimeException e) {
+			// the analyzer owns the statistics, which would never be closed
+			if (stats != null) {
+				stats.close();
+			}
+			throw e;
+		}
+		if (cache != null) {
+			entry.addCache(cache);
+		}
+		this.stopTags = stopTags;
+		this.cache = cache;
+		this.stats = stats;
+		this.parallel = parallel;
+		if (stats != null && cache != null) {
+			stats.section("cache", cache);
+		}
+		if (stats != null && entry.dictionary() != null) {
+			stats.section("user_dictionary", entry.dictionary());
+		}
+		if (stats != null && entry.sentenceCache() != null) {
+			stats.section("sentence_cache", entry.sentenceCache());
+		}
+	}
+	
+	/**
+	 * Returns the analysis cache, or null if it is disabled
+	 */
+	public KuromojiAnalysisCache cache() {
+		return cache;
 	}
 	
 	private static final String[] stopWords = {
@@ -49,18 +116,38 @@ public class KuromojiAnalyzer extends StopwordAnalyzerBase {
 			String fieldName,
 			Reader aReader) {
 		
-		try {
-			KuromojiNormalizeFilter filtered = new KuromojiNormalizeFilter(CharReader.get(aReader));
-			KuromojiTokenizer tokenizer = new KuromojiTokenizer(this.tokenizer, filtered);
-			TokenStream stream = new KuromojiTypeFilter(true, tokenizer);
-			stream = new KuromojiBaseFormFilter(stream);
-			stream = new KuromojiKatakanaStemFilter(stream);
-			return new TokenStreamComponents(tokenizer, stream);
-			
-		} catch (IOException e) {
-			throw new RuntimeException(e.getMessage(),e);
+		KuromojiNormalizeFilter filtered = new KuromojiNormalizeFilter(CharReader.get(aReader));
+		KuromojiTokenizer tokenizer = new KuromojiTokenizer(entry, cache, parallel, filtered);
+		TokenStream stream = new KuromojiTypeFilter(true, stopTags, stats, tokenizer);
+		stream = new KuromojiBaseFormFilter(stream);
+		stream = new KuromojiKatakanaStemFilter(stream);
+		if (stats != null) {
+			stream = new AnalysisStatsFilter(stats, stream);
 		}
+		return new TokenStreamComponents(tokenizer, stream) {
+			@Override
+			protected boolean reset(Reader reader) throws IOException {
+				// reused components have to be normalized as well
+				return super.reset(new KuromojiNormalizeFilter(CharReader.get(reader)));
+			}
+		};
 		
 	}
 	
+	@Override
+	public synchronized void close() {
+		// the tokenizer is shared in the node
+		if (entry != null) {
+			if (cache != null) {
+				entry.removeCache(cache);
+			}
+			registry.release(entry);
+			entry = null;
+		}
+		if (stats != null) {
+			stats.close();
+		}
+		super.close();
+	}
+	
 }
@@ -1,15 +1,33 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
+import java.io.File;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsService;
+
 import org.atilika.kuromoji.Tokenizer.Mode;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.analysis.AbstractIndexAnalyzerProvider;
 import org.elasticsearch.index.settings.IndexSettings;
 
 /**
  * Kuromoji Analyzer
+ * <p>
+ * Parts of speech to remove can be configured with <code>stoptags</code>
+ * or <code>stoptags_path</code>.
+ * <p>
+ * Statistics are collected unless <code>stats.enabled</code> is false, see
+ * {@link AnalysisStatsService}.
+ * <p>
+ * Very large documents are segmented in parallel if
+ * <code>parallel.enabled</code> is true, see {@link KuromojiParallelPool}.
+ * <p>
+ * Words can be added with a Kuromoji user dictionary file,
+ * <code>user_dictionary</code>, which is reloaded when it changes, see
+ * {@link KuromojiTokenizerRegistry}.
  * 
  * @author namura_suguru
  */
@@ -21,10 +39,19 @@ public class KuromojiAnalyzerProvider extends AbstractIndexAnalyzerProvider<Kuro
 	public KuromojiAnalyzerProvider(
 			Index index,
 			@IndexSettings Settings indexSettings,
+			Environment env,
+			KuromojiTokenizerRegistry registry,
+			KuromojiParallelPool parallelPool,
+			AnalysisStatsService statsService,
 			@Assisted String name,
 			@Assisted Settings settings) {
 		super(index, indexSettings, name, settings);
-		this.analyzer = new KuromojiAnalyzer(true, Mode.NORMAL);
+		KuromojiStopTags stopTags = KuromojiStopTags.parse(env, settings);
+		KuromojiParallelPool.Parallelism parallel = parallelPool.parallelism(settings);
+		File userDictionary = KuromojiUserDictionary.file(env, settings);
+		// registered last, the analyzer closes the statistics if it fails to load its tokenizer
+		this.analyzer = new KuromojiAnalyzer(registry, true, Mode.NORMAL, stopTags, null,
+				statsService.register(index, name, settings), parallel, userDictionary);
 	}
 	
 	@Override
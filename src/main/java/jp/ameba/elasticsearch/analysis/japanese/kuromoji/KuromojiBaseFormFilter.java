@@ -30,13 +30,9 @@ public class KuromojiBaseFormFilter extends TokenFilter {
 	public final boolean incrementToken() throws IOException {
 		if (input.incrementToken()) {
 			// キーワードは無視
-			if (!keywordAttr.isKeyword()) {
-				// 基本形を取得
-				String base = baseFormAttr.getBaseForm();
-				if (base != null) { 
-					// 基本形があれば、置き換える
-					termAttr.setEmpty().append(baseFormAttr.getBaseForm());
-				}
+			// 基本形が表記と異なれば、置き換える
+			if (!keywordAttr.isKeyword() && !baseFormAttr.isSurfaceForm()) {
+				termAttr.copyBuffer(baseFormAttr.baseFormBuffer(), 0, baseFormAttr.baseFormLength());
 			}
 			return true;
 		} else {
@@ -0,0 +1,18 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import org.elasticsearch.common.inject.AbstractModule;
+
+/**
+ * Node level bindings of the Kuromoji analysis plugin
+ *
+ * @author namura_suguru
+ */
+public class KuromojiModule extends AbstractModule {
+
+	@Override
+	protected void configure() {
+		bind(KuromojiTokenizerRegistry.class).asEagerSingleton();
+		bind(KuromojiParallelPool.class).asEagerSingleton();
+	}
+
+}
@@ -4,66 +4,109 @@ import java.io.IOException;
 
 import org.apache.lucene.analysis.BaseCharFilter;
 import org.apache.lucene.analysis.CharStream;
-import org.apache.lucene.analysis.util.StemmerUtil;
 
 /**
  * NormalizeFilter inspired from CJKWidthFilter
+ * <p>
+ * Width folding, lowercasing and replacing punctuations with spaces are
+ * precomputed into a single mapping table, so that each char is normalized
+ * by one lookup. Only halfwidth voiced marks need to look at the previous
+ * char, to be combined with it.
+ * <p>
+ * Each combined voiced mark is recorded in the offset correction map of
+ * {@link BaseCharFilter}, so that corrected offsets point to the original
+ * text. A read ending with a kana reads one more char, so that a voiced
+ * mark of the next read is combined as well, whatever the read sizes.
  * 
  * @author namura_suguru
  */
 public class KuromojiNormalizeFilter extends BaseCharFilter {
 
+	/** number of chars returned by the previous reads */
+	private int outputOffset = 0;
+
+	/** char read after the previous read, -1 if none */
+	private int pending = -1;
+
 	public KuromojiNormalizeFilter(CharStream in) {
 		super(in);
 	}
 
 	@Override
 	public final int read(char[] cbuf, int off, int len) throws IOException {
-		int length = input.read(cbuf, off, len);
-		for (int i = 0; i < len; i++) {
+		if (len <= 0) {
+			return 0;
+		}
+		int length;
+		if (pending >= 0) {
+			cbuf[off] = (char) pending;
+			pending = -1;
+			length = len > 1 ? 1 + Math.max(input.read(cbuf, off + 1, len - 1), 0) : 1;
+		} else {
+			length = input.read(cbuf, off, len);
+			if (length <= 0) {
+				return length;
+			}
+		}
+		final int end = off + length;
+		int pos = off;
+		for (int i = off; i < end; i++) {
 			final char ch = cbuf[i];
-			if (ch >= 0xFF01 && ch <= 0xFF5E) {
-				// Fullwidth ASCII variants
-				cbuf[i] -= 0xFEE0;
-			} else if (ch >= 0xFF65 && ch <= 0xFF9F) {
-				// Halfwidth Katakana variants
-				cbuf[i] = KANA_NORM[ch - 0xFF65];
-				// Halfwidth Katakana variants
-				if ((ch == 0xFF9E || ch == 0xFF9F) && i > 0
-						&& combine(cbuf, i, length, ch)) {
-					length = StemmerUtil.delete(cbuf, i--, length);
-				} else {
-					cbuf[i] = KANA_NORM[ch - 0xFF65];
-				}
-			} 
-			if (Character.isUpperCase(cbuf[i])) {
-				cbuf[i] = Character.toLowerCase(cbuf[i]);
+			if ((ch == 0xFF9E || ch == 0xFF9F) && pos > off
+					&& combine(cbuf, pos, ch)) {
+				// Halfwidth voiced marks combined with the previous char,
+				// following chars are shifted by one more
+				addOffCorrectMap(outputOffset + pos - off, getLastCumulativeDiff() + 1);
+				continue;
+			}
+			cbuf[pos++] = NORM[ch];
+		}
+		final char last = cbuf[pos - 1];
+		if (last >= 0x30A6 && last <= 0x30FD) {
+			final int next = input.read();
+			if ((next == 0xFF9E || next == 0xFF9F) && combine(cbuf, pos, (char) next)) {
+				addOffCorrectMap(outputOffset + pos - off, getLastCumulativeDiff() + 1);
 			} else {
-				switch (Character.getType(cbuf[i])) {
-				case Character.SPACE_SEPARATOR:
-				case Character.LINE_SEPARATOR:
-				case Character.PARAGRAPH_SEPARATOR:
-				case Character.CONTROL:
-				case Character.FORMAT:
-				case Character.DASH_PUNCTUATION:
-				case Character.START_PUNCTUATION:
-				case Character.END_PUNCTUATION:
-				case Character.CONNECTOR_PUNCTUATION:
-				case Character.OTHER_PUNCTUATION:
-				case Character.MATH_SYMBOL:
-				case Character.CURRENCY_SYMBOL:
-				case Character.MODIFIER_SYMBOL:
-				case Character.OTHER_SYMBOL:
-				case Character.INITIAL_QUOTE_PUNCTUATION:
-				case Character.FINAL_QUOTE_PUNCTUATION:
-					cbuf[i] = ' ';
-					break;
-				default:
-					break;
-				}
+				pending = next;
 			}
 		}
-		return length;
+		outputOffset += pos - off;
+		return pos - off;
+	}
+
+	/** normalizes a single char */
+	private static char normalize(char ch) {
+		if (ch >= 0xFF01 && ch <= 0xFF5E) {
+			// Fullwidth ASCII variants
+			ch -= 0xFEE0;
+		} else if (ch >= 0xFF65 && ch <= 0xFF9F) {
+			// Halfwidth Katakana variants
+			ch = KANA_NORM[ch - 0xFF65];
+		}
+		if (Character.isUpperCase(ch)) {
+			return Character.toLowerCase(ch);
+		}
+		switch (Character.getType(ch)) {
+		case Character.SPACE_SEPARATOR:
+		case Character.LINE_SEPARATOR:
+		case Character.PARAGRAPH_SEPARATOR:
+		case Character.CONTROL:
+		case Character.FORMAT:
+		case Character.DASH_PUNCTUATION:
+		case Character.START_PUNCTUATION:
+		case Character.END_PUNCTUATION:
+		case Character.CONNECTOR_PUNCTUATION:
+		case Character.OTHER_PUNCTUATION:
+		case Character.MATH_SYMBOL:
+		case Character.CURRENCY_SYMBOL:
+		case Character.MODIFIER_SYMBOL:
+		case Character.OTHER_SYMBOL:
+		case Character.INITIAL_QUOTE_PUNCTUATION:
+		case Character.FINAL_QUOTE_PUNCTUATION:
+			return ' ';
+		default:
+			return ch;
+		}
 	}
 
 	/*
@@ -96,8 +139,17 @@ public class KuromojiNormalizeFilter extends BaseCharFilter {
 			0, 2, 0, 0, 2, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
 			0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 };
 
+	/** normalized char of each char, built after the kana mappings */
+	private static final char[] NORM = new char[0x10000];
+
+	static {
+		for (int i = 0; i < NORM.length; i++) {
+			NORM[i] = normalize((char) i);
+		}
+	}
+
 	/** returns true if we successfully combined the voice mark */
-	private static boolean combine(char text[], int pos, int length, char ch) {
+	private static boolean combine(char text[], int pos, char ch) {
 		final char prev = text[pos - 1];
 		if (prev >= 0x30A6 && prev <= 0x30FD) {
 			text[pos - 1] += (ch == 0xFF9F) ? KANA_COMBINE_HALF_VOICED[prev - 0x30A6]
@@ -0,0 +1,200 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.elasticsearch.ElasticSearchException;
+import org.elasticsearch.ElasticSearchIllegalStateException;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.jsr166y.ForkJoinPool;
+import org.elasticsearch.common.util.concurrent.jsr166y.ForkJoinWorkerThread;
+import org.elasticsearch.common.util.concurrent.jsr166y.RecursiveAction;
+
+/**
+ * Node level fork-join pool segmenting the sentences of very large
+ * documents in parallel.
+ * <p>
+ * The pool has <code>japanese.parallel.threads</code> threads (default the
+ * number of processors), and is started when an analyzer first needs it.
+ * It is shut down when the node is closed.
+ * Analyzers opt in with <code>parallel.enabled</code>, see
+ * {@link #parallelism(Settings)}.
+ *
+ * @author namura_suguru
+ */
+public class KuromojiParallelPool extends AbstractLifecycleComponent<KuromojiParallelPool> {
+
+	public static final int DEFAULT_THRESHOLD = 65536;
+
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final int threads;
+
+	private ForkJoinPool pool;
+
+	private boolean closed = false;
+
+	@Inject
+	public KuromojiParallelPool(Settings settings) {
+		super(settings);
+		this.threads = settings.getAsInt("japanese.parallel.threads", Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Returns the parallel segmentation configured in the analyzer settings,
+	 * or null if it is not enabled.
+	 * <p>
+	 * Documents longer than <code>parallel.threshold</code> chars (default
+	 * 65536) are read that many chars at a time, and the sentences of each
+	 * read are segmented in chunks of about <code>parallel.chunk_size</code>
+	 * chars (default 8192).
+	 */
+	public Parallelism parallelism(Settings settings) {
+		if (!settings.getAsBoolean("parallel.enabled", false)) {
+			return null;
+		}
+		int threshold = Math.max(settings.getAsInt("parallel.threshold", DEFAULT_THRESHOLD), KuromojiTokenizer.BUFFERMAX);
+		int chunkSize = Math.max(settings.getAsInt("parallel.chunk_size", DEFAULT_CHUNK_SIZE), KuromojiTokenizer.SENTENCEMIN);
+		return new Parallelism(this, threshold, chunkSize);
+	}
+
+	synchronized ForkJoinPool pool() {
+		if (closed) {
+			throw new ElasticSearchIllegalStateException("japanese parallel analysis pool is closed");
+		}
+		if (pool == null) {
+			final AtomicInteger count = new AtomicInteger();
+			final String name = EsExecutors.threadName(settings, "japanese_parallel");
+			pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+				@Override
+				public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+					ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {};
+					thread.setName(name + "[T#" + count.incrementAndGet() + "]");
+					return thread;
+				}
+			}, null, false);
+			logger.debug("started japanese parallel analysis pool with [{}] threads", threads);
+		}
+		return pool;
+	}
+
+	@Override
+	protected void doStart() throws ElasticSearchException {
+	}
+
+	@Override
+	protected void doStop() throws ElasticSearchException {
+	}
+
+	@Override
+	protected synchronized void doClose() throws ElasticSearchException {
+		closed = true;
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Parallel segmentation of an analyzer
+	 */
+	public static class Parallelism {
+
+		private final KuromojiParallelPool owner;
+
+		private final int threshold;
+
+		private final int chunkSize;
+
+		Parallelism(KuromojiParallelPool owner, int threshold, int chunkSize) {
+			this.owner = owner;
+			this.threshold = threshold;
+			this.chunkSize = chunkSize;
+		}
+
+		/**
+		 * Returns the length of documents segmented in parallel, which is
+		 * also how much of them is read at once.
+		 */
+		public int threshold() {
+			return threshold;
+		}
+
+		/**
+		 * Segments ranges of the buffer in parallel and returns their
+		 * tokens in order. Range i starts at starts[i] and ends at ends[i].
+		 * Ranges are looked up in the sentence cache first, if it is not null.
+		 */
+		List<List<Token>> segment(Tokenizer tokenizer, KuromojiSentenceCache sentenceCache, char[] buffer, int[] starts, int[] ends, int ranges) {
+			List<List<Token>> tokens = new ArrayList<List<Token>>(ranges);
+			for (int i = 0; i < ranges; i++) {
+				tokens.add(null);
+			}
+			owner.pool().invoke(new Segmentation(tokenizer, sentenceCache, buffer, starts, ends, tokens, chunkSize, 0, ranges));
+			return tokens;
+		}
+
+	}
+
+	/**
+	 * Segments ranges of the buffer, splitting them in halves while they
+	 * span more than the chunk size.
+	 */
+	private static class Segmentation extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Tokenizer tokenizer;
+
+		private final KuromojiSentenceCache sentenceCache;
+
+		private final char[] buffer;
+
+		private final int[] starts, ends;
+
+		private final List<List<Token>> tokens;
+
+		private final int chunkSize;
+
+		private final int from, to;
+
+		Segmentation(Tokenizer tokenizer, KuromojiSentenceCache sentenceCache, char[] buffer, int[] starts, int[] ends, List<List<Token>> tokens,
+				int chunkSize, int from, int to) {
+			this.tokenizer = tokenizer;
+			this.sentenceCache = sentenceCache;
+			this.buffer = buffer;
+			this.starts = starts;
+			this.ends = ends;
+			this.tokens = tokens;
+			this.chunkSize = chunkSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1 && ends[to - 1] - starts[from] > chunkSize) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Segmentation(tokenizer, sentenceCache, buffer, starts, ends, tokens, chunkSize, from, middle),
+						new Segmentation(tokenizer, sentenceCache, buffer, starts, ends, tokens, chunkSize, middle, to));
+				return;
+			}
+			for (int i = from; i < to; i++) {
+				// every range has its own slot, and the invoking thread reads them after the join
+				if (sentenceCache != null) {
+					tokens.set(i, sentenceCache.tokenize(tokenizer, buffer, starts[i], ends[i]));
+				} else {
+					tokens.set(i, tokenizer.tokenize(new String(buffer, starts[i], ends[i] - starts[i])));
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Numbers parts of speech, so that filters can decide by an integer id.
+ * <p>
+ * Ids are assigned in the order in which parts of speech are first seen,
+ * and are never reused. There are only a few dozens of them in the
+ * dictionary, and ids are given to at most {@link #MAX_IDS} of them, as
+ * user dictionaries may have any part of speech.
+ * <p>
+ * Tokens of the system dictionary take the id kept by {@link KuromojiWords},
+ * so that the map is only read for new words and user dictionary words.
+ */
+public final class KuromojiPartOfSpeech {
+	
+	public static final int MAX_IDS = 1024;
+	
+	private static final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	
+	private static final List<String> names = new ArrayList<String>();
+	
+	private KuromojiPartOfSpeech() {
+	}
+	
+	/**
+	 * Returns the id of the part of speech, or -1 if {@link #MAX_IDS} have
+	 * been given to others
+	 */
+	public static int id(String partOfSpeech) {
+		Integer id = ids.get(partOfSpeech);
+		if (id == null) {
+			synchronized (names) {
+				id = ids.get(partOfSpeech);
+				if (id == null) {
+					if (names.size() >= MAX_IDS) {
+						return -1;
+					}
+					id = names.size();
+					names.add(partOfSpeech);
+					ids.put(partOfSpeech, id);
+				}
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Returns the part of speech of the id
+	 */
+	public static String name(int id) {
+		synchronized (names) {
+			return names.get(id);
+		}
+	}
+	
+	/**
+	 * Returns the number of ids assigned
+	 */
+	public static int size() {
+		synchronized (names) {
+			return names.size();
+		}
+	}
+	
+}
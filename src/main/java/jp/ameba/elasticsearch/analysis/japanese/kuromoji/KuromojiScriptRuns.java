@@ -0,0 +1,109 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.util.List;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+
+/**
+ * Tokens which Kuromoji gives to runs of ASCII letters, of ASCII digits
+ * and of spaces, so that {@link KuromojiTokenizer} emits such runs without
+ * segmenting them.
+ * <p>
+ * The system dictionary has no word starting with an ASCII letter or digit
+ * but <code>Tシャツ</code>, so a run of them is a single unknown word. A
+ * run of spaces is a single unknown word too, so the part of speech of a
+ * run between spaces or the edges of the sentence does not depend on the
+ * rest of the sentence, and the words around the spaces do not depend on
+ * the run either. The tokens are probed in each of these contexts, and a
+ * class whose probes disagree, such as in the extended mode which splits
+ * unknown words into chars, is always segmented by Kuromoji.
+ *
+ * @author namura_suguru
+ */
+final class KuromojiScriptRuns {
+
+	/** script classes of runs, OTHER runs are segmented by Kuromoji */
+	static final int OTHER = 0, ALPHA = 1, NUMERIC = 2, SPACE = 3;
+
+	/** spaces of every kind, to check that Kuromoji groups them */
+	private static final String SPACES = " \t\n";
+
+	/** tokens of the runs by class, null if the class is segmented */
+	private final Token[] tokens = new Token[4];
+
+	KuromojiScriptRuns(Tokenizer tokenizer) {
+		Token alpha = probe(tokenizer, "ab");
+		Token numeric = probe(tokenizer, "12");
+		Token space = probe(tokenizer, SPACES);
+		if (space != null) {
+			tokens[ALPHA] = alpha;
+			tokens[NUMERIC] = numeric;
+			tokens[SPACE] = space;
+		}
+	}
+
+	/**
+	 * Returns the token of runs of the class, or null if they are segmented
+	 * by Kuromoji
+	 */
+	Token token(int type) {
+		return tokens[type];
+	}
+
+	static int scriptClass(char ch) {
+		if (ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z') {
+			return ALPHA;
+		} else if (ch >= '0' && ch <= '9') {
+			return NUMERIC;
+		} else if (ch == ' ' || ch == '\t' || ch == '\n') {
+			// not '\r', which is a symbol for Kuromoji
+			return SPACE;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Returns the token of the word, or null unless it is the same unknown
+	 * word without base form alone, after and before spaces and between
+	 * them, and the spaces are too.
+	 */
+	private static Token probe(Tokenizer tokenizer, String word) {
+		String other = word.equals(SPACES) ? "ab" : SPACES;
+		String[][] probes = {
+			{ word },
+			{ word, other, word, other, word },
+			{ other, word, other },
+		};
+		Token probed = null, around = null;
+		for (String[] probe : probes) {
+			StringBuilder text = new StringBuilder();
+			for (String part : probe) {
+				text.append(part);
+			}
+			List<Token> tokens = tokenizer.tokenize(text.toString());
+			if (tokens.size() != probe.length) {
+				return null;
+			}
+			for (int i = 0; i < probe.length; i++) {
+				Token token = tokens.get(i);
+				if (!token.getSurfaceForm().equals(probe[i]) || !token.isUnknown() || token.getBaseForm() != null) {
+					return null;
+				}
+				if (probe[i].equals(word)) {
+					if (probed == null) {
+						probed = token;
+					} else if (!token.getPartOfSpeech().equals(probed.getPartOfSpeech())) {
+						return null;
+					}
+				} else if (around == null) {
+					around = token;
+				} else if (!token.getPartOfSpeech().equals(around.getPartOfSpeech())) {
+					return null;
+				}
+			}
+		}
+		return probed;
+	}
+
+}
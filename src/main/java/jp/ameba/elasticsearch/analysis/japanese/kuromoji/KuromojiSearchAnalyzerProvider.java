@@ -1,15 +1,39 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
+import java.io.File;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsService;
+
 import org.atilika.kuromoji.Tokenizer.Mode;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.analysis.AbstractIndexAnalyzerProvider;
 import org.elasticsearch.index.settings.IndexSettings;
 
 /**
  * Kuromoji Analyzer
+ * <p>
+ * Parts of speech to remove can be configured with <code>stoptags</code>
+ * or <code>stoptags_path</code>.
+ * <p>
+ * Statistics are collected unless <code>stats.enabled</code> is false, see
+ * {@link AnalysisStatsService}.
+ * <p>
+ * Very large documents are segmented in parallel if
+ * <code>parallel.enabled</code> is true, see {@link KuromojiParallelPool}.
+ * <p>
+ * Words can be added with a Kuromoji user dictionary file,
+ * <code>user_dictionary</code>, which is reloaded when it changes, see
+ * {@link KuromojiTokenizerRegistry}.
+ * <p>
+ * Analysis results of queries can be cached with
+ * <code>cache.enabled</code>, <code>cache.size</code> (default 10mb) and
+ * <code>cache.max_length</code> (default 256 chars).
  * 
  * @author namura_suguru
  */
@@ -21,10 +45,25 @@ public class KuromojiSearchAnalyzerProvider extends AbstractIndexAnalyzerProvide
 	public KuromojiSearchAnalyzerProvider(
 			Index index,
 			@IndexSettings Settings indexSettings,
+			Environment env,
+			KuromojiTokenizerRegistry registry,
+			KuromojiParallelPool parallelPool,
+			AnalysisStatsService statsService,
 			@Assisted String name,
 			@Assisted Settings settings) {
 		super(index, indexSettings, name, settings);
-		this.analyzer = new KuromojiAnalyzer(true, Mode.SEARCH);
+		KuromojiAnalysisCache cache = null;
+		if (settings.getAsBoolean("cache.enabled", false)) {
+			ByteSizeValue size = settings.getAsBytesSize("cache.size", new ByteSizeValue(10, ByteSizeUnit.MB));
+			int maxLength = settings.getAsInt("cache.max_length", 256);
+			cache = new KuromojiAnalysisCache(size.bytes(), Math.min(maxLength, KuromojiTokenizer.BUFFERMAX));
+		}
+		KuromojiStopTags stopTags = KuromojiStopTags.parse(env, settings);
+		KuromojiParallelPool.Parallelism parallel = parallelPool.parallelism(settings);
+		File userDictionary = KuromojiUserDictionary.file(env, settings);
+		// registered last, the analyzer closes the statistics if it fails to load its tokenizer
+		this.analyzer = new KuromojiAnalyzer(registry, true, Mode.SEARCH, stopTags, cache,
+				statsService.register(index, name, settings), parallel, userDictionary);
 	}
 	
 	@Override
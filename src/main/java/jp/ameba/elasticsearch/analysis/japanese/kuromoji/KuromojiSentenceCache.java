@@ -0,0 +1,262 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.StripedCounter;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * Bounded LRU cache of the Kuromoji tokens of sentences, shared by every
+ * tokenizer on the node, so that sentences repeated across documents, such
+ * as footers and disclaimers, are segmented once. Its size bounds the
+ * sentences of every tokenizer configuration together.
+ * <p>
+ * Sentences are keyed by the tokenizer which segmented them and a 64-bit
+ * hash of their chars, and a hit is only taken if the tokenizer, the length
+ * and the chars of the cached sentence match. Token positions are relative
+ * to the sentence, so cached tokens are replayed wherever the sentence is.
+ * The cache is split into segments locked separately, so that indexing
+ * threads rarely contend.
+ * <p>
+ * Only the tokens of registered tokenizers are cached. The tokens of a
+ * tokenizer are dropped when it is replaced or released, see
+ * {@link #invalidate(Tokenizer)}.
+ *
+ * @author namura_suguru
+ */
+public class KuromojiSentenceCache implements ToXContent {
+
+	private static final int SEGMENTS = 16;
+
+	/** estimated overhead of a sentence, its key and its token list */
+	private static final int ENTRY_OVERHEAD = 160;
+
+	/** estimated size of a token, without its surface form */
+	private static final int TOKEN_OVERHEAD = 64;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	private final int maxLength;
+
+	/** tokenizers whose tokens are cached */
+	private final Set<Tokenizer> tokenizers = Collections.newSetFromMap(new ConcurrentHashMap<Tokenizer, Boolean>());
+
+	private final StripedCounter hits = new StripedCounter();
+
+	private final StripedCounter misses = new StripedCounter();
+
+	private final StripedCounter evictions = new StripedCounter();
+
+	/**
+	 * @param maxSizeInBytes estimated size of the cache
+	 * @param maxLength sentences longer than this are not cached
+	 */
+	public KuromojiSentenceCache(long maxSizeInBytes, int maxLength) {
+		this.maxLength = maxLength;
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(maxSizeInBytes / SEGMENTS);
+		}
+	}
+
+	/**
+	 * Returns the tokens of the sentence of the buffer from start to end,
+	 * from the cache if it has been segmented by the same tokenizer.
+	 */
+	public List<Token> tokenize(Tokenizer tokenizer, char[] buffer, int start, int end) {
+		final int length = end - start;
+		if (length > maxLength || !tokenizers.contains(tokenizer)) {
+			return tokenizer.tokenize(new String(buffer, start, length));
+		}
+		final long hash = hash(buffer, start, end) ^ System.identityHashCode(tokenizer) * 0x9E3779B97F4A7C15L;
+		final Segment segment = segments[(int) (hash >>> 32) & (SEGMENTS - 1)];
+		Sentence sentence;
+		synchronized (segment) {
+			sentence = segment.get(hash);
+		}
+		if (sentence != null && sentence.matches(tokenizer, buffer, start, length)) {
+			hits.add(1);
+			return sentence.tokens;
+		}
+		misses.add(1);
+		String text = new String(buffer, start, length);
+		List<Token> tokens = tokenizer.tokenize(text);
+		sentence = new Sentence(tokenizer, text, tokens);
+		synchronized (segment) {
+			// tokens of a replaced or released tokenizer are not cached
+			if (tokenizers.contains(tokenizer)) {
+				segment.add(hash, sentence, evictions);
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Caches the tokens of the tokenizer from now on
+	 */
+	public void register(Tokenizer tokenizer) {
+		tokenizers.add(tokenizer);
+	}
+
+	/**
+	 * Drops the cached tokens of the tokenizer, and stops caching them
+	 */
+	public void invalidate(Tokenizer tokenizer) {
+		tokenizers.remove(tokenizer);
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.remove(tokenizer);
+			}
+		}
+	}
+
+	/** 64-bit FNV-1a hash of the chars */
+	private static long hash(char[] buffer, int start, int end) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = start; i < end; i++) {
+			hash ^= buffer[i];
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	public int count() {
+		int count = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				count += segment.size();
+			}
+		}
+		return count;
+	}
+
+	public long sizeInBytes() {
+		long size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.sizeInBytes;
+			}
+		}
+		return size;
+	}
+
+	public long hits() {
+		return hits.get();
+	}
+
+	public long misses() {
+		return misses.get();
+	}
+
+	public long evictions() {
+		return evictions.get();
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		long hits = hits();
+		long misses = misses();
+		builder.field("count", count());
+		builder.field("size_in_bytes", sizeInBytes());
+		builder.field("hits", hits);
+		builder.field("misses", misses);
+		builder.field("evictions", evictions());
+		builder.field("hit_ratio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+		return builder;
+	}
+
+	/**
+	 * LRU map of a part of the hashes, guarded by itself
+	 */
+	private static class Segment extends LinkedHashMap<Long, Sentence> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long maxSizeInBytes;
+
+		private long sizeInBytes = 0;
+
+		Segment(long maxSizeInBytes) {
+			super(64, 0.75f, true);
+			this.maxSizeInBytes = maxSizeInBytes;
+		}
+
+		void remove(Tokenizer tokenizer) {
+			Iterator<Sentence> it = values().iterator();
+			while (it.hasNext()) {
+				Sentence sentence = it.next();
+				if (sentence.tokenizer == tokenizer) {
+					sizeInBytes -= sentence.sizeInBytes;
+					it.remove();
+				}
+			}
+		}
+
+		void add(long hash, Sentence sentence, StripedCounter evictions) {
+			if (sentence.sizeInBytes > maxSizeInBytes) {
+				return;
+			}
+			Sentence previous = put(hash, sentence);
+			if (previous != null) {
+				sizeInBytes -= previous.sizeInBytes;
+			}
+			sizeInBytes += sentence.sizeInBytes;
+			Iterator<Sentence> it = values().iterator();
+			while (sizeInBytes > maxSizeInBytes && it.hasNext()) {
+				sizeInBytes -= it.next().sizeInBytes;
+				it.remove();
+				evictions.add(1);
+			}
+		}
+
+	}
+
+	/**
+	 * Tokens of a sentence
+	 */
+	private static class Sentence {
+
+		private final Tokenizer tokenizer;
+
+		private final String text;
+
+		private final List<Token> tokens;
+
+		private final long sizeInBytes;
+
+		Sentence(Tokenizer tokenizer, String text, List<Token> tokens) {
+			this.tokenizer = tokenizer;
+			this.text = text;
+			this.tokens = tokens;
+			long size = ENTRY_OVERHEAD + text.length() * 2;
+			for (Token token : tokens) {
+				size += TOKEN_OVERHEAD + token.getSurfaceForm().length() * 2;
+			}
+			this.sizeInBytes = size;
+		}
+
+		/** true if the sentence is the cached one, whose hash is the same */
+		boolean matches(Tokenizer tokenizer, char[] buffer, int start, int length) {
+			if (this.tokenizer != tokenizer || text.length() != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (text.charAt(i) != buffer[start + i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.index.analysis.Analysis;
+
+/**
+ * Parts of speech removed by {@link KuromojiTypeFilter}.
+ * <p>
+ * A tag stops every part of speech starting with it, e.g. <code>助詞</code>
+ * stops <code>助詞,格助詞,一般,*</code>. Tags are configured with
+ * <code>stoptags</code> or <code>stoptags_path</code>.
+ */
+public class KuromojiStopTags {
+	
+	private static final String[] DEFAULT_STOP_TAGS = {
+		"接続詞",
+		"接頭詞",
+		"助詞",
+		"助動詞",
+		"記号",
+		"その他",
+		"フィラー",
+		"非言語音",
+		"動詞,非自立",
+	};
+	
+	private final String[] tags;
+	
+	/** decision for the parts of speech known when the tags are compiled */
+	private final BitSet stopped = new BitSet();
+	
+	private final int known;
+	
+	public KuromojiStopTags(String... tags) {
+		this.tags = tags;
+		this.known = KuromojiPartOfSpeech.size();
+		for (int id = 0; id < known; id++) {
+			if (matches(id)) {
+				stopped.set(id);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the default stop tags
+	 */
+	public static KuromojiStopTags defaults() {
+		return new KuromojiStopTags(DEFAULT_STOP_TAGS);
+	}
+	
+	/**
+	 * Returns the stop tags configured in the settings, or the default ones
+	 */
+	public static KuromojiStopTags parse(Environment env, Settings settings) {
+		List<String> tags = Analysis.getWordList(env, settings, "stoptags");
+		if (tags == null) {
+			return defaults();
+		}
+		return new KuromojiStopTags(tags.toArray(new String[tags.size()]));
+	}
+	
+	/**
+	 * Returns the stop decisions known at compilation. Filters extend a
+	 * copy of it with {@link #matches(int)} for parts of speech found later.
+	 */
+	public BitSet stopped() {
+		return (BitSet) stopped.clone();
+	}
+	
+	/**
+	 * Returns the number of parts of speech decided in {@link #stopped()}
+	 */
+	public int known() {
+		return known;
+	}
+	
+	/**
+	 * Returns true if the part of speech is stopped
+	 */
+	public boolean matches(int id) {
+		return matches(KuromojiPartOfSpeech.name(id));
+	}
+	
+	/**
+	 * Returns true if the part of speech is stopped, for parts of speech
+	 * without id
+	 */
+	public boolean matches(String partOfSpeech) {
+		for (String tag : tags) {
+			if (partOfSpeech.startsWith(tag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+}
@@ -2,81 +2,532 @@ package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.BaseFormAttribute;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.PartOfSpeechAttribute;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.PartOfSpeechAttributeImpl;
+import jp.ameba.elasticsearch.analysis.japanese.util.JapaneseSentenceBreaker;
+import jp.ameba.elasticsearch.analysis.japanese.util.SentenceBreaker;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
-import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
 import org.atilika.kuromoji.Token;
 
 /**
  * {@link KuromojiTokenizer} is based on KuromojiTokenizer implemented at kuromoji-solr project.
+ * <p>
+ * The input is read in bounded chunks which are cut at safe sentence
+ * boundaries, so that the whole field is never materialized at once. A
+ * chunk without any clause end grows up to {@link #MAX_BUFFERMAX} chars,
+ * and shrinks back when the tokenizer is reset. Only text longer than that
+ * without a clause end may have tokens cut.
+ * Each chunk is analyzed lazily one sentence at a time, only when the
+ * tokens of the previous sentence have been consumed.
+ * <p>
+ * Sentences are split into script runs. Runs of ASCII letters or of ASCII
+ * digits between spaces or the edges of the sentence, and the spaces
+ * between them, are emitted as the single tokens Kuromoji gives them, see
+ * {@link KuromojiScriptRuns}. Runs next to other chars, such as kana and
+ * kanji, are segmented by Kuromoji with them, as are the ASCII words of a
+ * user dictionary.
+ * <p>
+ * If a {@link KuromojiParallelPool.Parallelism} is given, documents longer
+ * than {@link #BUFFERMAX} are read in chunks of its threshold, and the runs
+ * of the chunks of documents longer than that are segmented in parallel
+ * before their tokens are emitted in order. The buffer doubles up to the
+ * threshold only while the input goes on, and a buffer grown that way is
+ * kept for the following documents.
+ * <p>
+ * If a {@link KuromojiAnalysisCache} is given, short texts are looked up
+ * in the cache and replayed from it instead of being analyzed. If the entry
+ * has a {@link KuromojiSentenceCache}, runs are looked up in it before they
+ * are segmented.
+ * <p>
+ * Terms are copied from the buffer, and the part of speech (which is also
+ * the type of the token) and the base form are looked up from the
+ * dictionary only when a filter reads them.
  */
 public class KuromojiTokenizer extends Tokenizer {
-	
-	private final org.atilika.kuromoji.Tokenizer tokenizer;
-	
+
+	protected static final int BUFFERMAX = 4096;
+
+	/** maximum size the buffer grows to for text without clause ends */
+	protected static final int MAX_BUFFERMAX = 16 * BUFFERMAX;
+
+	/** sentences shorter than this are joined with the following one */
+	protected static final int SENTENCEMIN = 64;
+
+	private static final int OTHER = KuromojiScriptRuns.OTHER, SPACE = KuromojiScriptRuns.SPACE;
+
+	private org.atilika.kuromoji.Tokenizer tokenizer;
+
+	/** shared tokenizer taken at every reset, null if the tokenizer is fixed */
+	private final KuromojiTokenizerRegistry.Entry entry;
+
+	/** tokens of runs segmented before, null if disabled */
+	private final KuromojiSentenceCache sentenceCache;
+
+	private final KuromojiScriptRuns scriptRuns;
+
+	/** runs emitted without Kuromoji, null if every run is segmented */
+	private KuromojiScriptRuns runs;
+
 	private final OffsetAttribute offsetAttr;
-	
+
 	private final CharTermAttribute termAttr;
-	
-	private final TypeAttribute typeAttr;
-	
+
+	private final PartOfSpeechAttribute posAttr;
+
 	private final BaseFormAttribute baseFormAttr;
-	
-	private List<Token> tokens;
-	
+
+	/** text being analyzed, grown to the parallel threshold for long documents */
+	private char[] buffer;
+
+	/** true length of text in the buffer */
+	private int length = 0;
+
+	/** length in buffer that can be evaluated safely, up to a safe end point */
+	private int usableLength = 0;
+
+	/** accumulated offset of previous buffers for this reader */
+	private int offset = 0;
+
+	/** true if the reader has been emptied */
+	private boolean exhausted = false;
+
+	/** sentence being analyzed */
+	private int sentenceStart = 0, sentenceEnd = 0;
+
+	/** script run being analyzed */
+	private int runStart = 0, runEnd = 0;
+
+	/** breaks the usable part of the buffer into sentences */
+	private final SentenceBreaker breaker = JapaneseSentenceBreaker.clauses(SENTENCEMIN);
+
+	/** tokens of the run being emitted, from tokenIndex */
+	private List<Token> tokens = Collections.<Token>emptyList();
+
 	private int tokenIndex = 0;
-	
-	private String source;
-	
-	public KuromojiTokenizer(org.atilika.kuromoji.Tokenizer tokenizer, Reader aReader) throws IOException {
+
+	private final KuromojiParallelPool.Parallelism parallel;
+
+	/** ends of the sentences of the buffer segmented in parallel */
+	private int[] sentenceEnds = new int[0];
+
+	private int sentenceIndex = 0;
+
+	/** ranges of the runs of the buffer segmented in parallel */
+	private int[] runStarts = new int[0], runEnds = new int[0];
+
+	/** tokens of the runs segmented in parallel, null if they are segmented one at a time */
+	private List<List<Token>> segmented;
+
+	private int segmentedIndex = 0;
+
+	private final KuromojiAnalysisCache cache;
+
+	/** text of the current input, if it can be cached */
+	private String cacheKey;
+
+	/** tokens being replayed from the cache */
+	private KuromojiAnalysisCache.Entry cached;
+
+	private int cachedIndex = 0;
+
+	/** generation of the cache when the tokenizer was read */
+	private long cacheGeneration = 0;
+
+	/** tokens being recorded for the cache */
+	private KuromojiAnalysisCache.Recorder recorder;
+
+	public KuromojiTokenizer(org.atilika.kuromoji.Tokenizer tokenizer, Reader aReader) {
+		this(tokenizer, null, aReader);
+	}
+
+	public KuromojiTokenizer(org.atilika.kuromoji.Tokenizer tokenizer, KuromojiAnalysisCache cache, Reader aReader) {
+		this(tokenizer, cache, null, aReader);
+	}
+
+	public KuromojiTokenizer(
+			org.atilika.kuromoji.Tokenizer tokenizer,
+			KuromojiAnalysisCache cache,
+			KuromojiParallelPool.Parallelism parallel,
+			Reader aReader) {
+		this(tokenizer, null, cache, parallel, aReader);
+	}
+
+	/**
+	 * Creates a tokenizer taking the tokenizer of the entry for every
+	 * document, so that documents are analyzed with the latest user
+	 * dictionary.
+	 */
+	public KuromojiTokenizer(
+			KuromojiTokenizerRegistry.Entry entry,
+			KuromojiAnalysisCache cache,
+			KuromojiParallelPool.Parallelism parallel,
+			Reader aReader) {
+		this(entry.tokenizer(), entry, cache, parallel, aReader);
+	}
+
+	private KuromojiTokenizer(
+			org.atilika.kuromoji.Tokenizer tokenizer,
+			KuromojiTokenizerRegistry.Entry entry,
+			KuromojiAnalysisCache cache,
+			KuromojiParallelPool.Parallelism parallel,
+			Reader aReader) {
 		super(aReader);
 		this.tokenizer = tokenizer;
+		this.entry = entry;
+		this.sentenceCache = entry == null ? null : entry.sentenceCache();
+		this.cache = cache;
+		this.parallel = parallel;
+		this.scriptRuns = this.runs = new KuromojiScriptRuns(tokenizer);
+		this.buffer = new char[BUFFERMAX];
+		// the part of speech attribute is the type attribute as well
+		addAttributeImpl(new PartOfSpeechAttributeImpl());
 		this.offsetAttr = addAttribute(OffsetAttribute.class);
 		this.termAttr = addAttribute(CharTermAttribute.class);
-		this.typeAttr = addAttribute(TypeAttribute.class);
+		this.posAttr = addAttribute(PartOfSpeechAttribute.class);
 		this.baseFormAttr = addAttribute(BaseFormAttribute.class);
-		reset(aReader);
 	}
-	
+
 	@Override
-	public void reset(Reader aReader) throws IOException {
-		super.reset(input);
+	public void reset() throws IOException {
+		if (cache != null) {
+			// read first, the registry clears the cache after replacing the tokenizer
+			this.cacheGeneration = cache.generation();
+		}
+		if (entry != null) {
+			this.tokenizer = entry.tokenizer();
+			// read after the tokenizer, which is published after its user dictionary is checked
+			this.runs = entry.hasAsciiUserWords() ? null : scriptRuns;
+		}
+		if (buffer.length > (parallel != null ? parallel.threshold() : BUFFERMAX)) {
+			// the previous document had text without clause ends
+			buffer = new char[BUFFERMAX];
+		}
+		this.length = this.usableLength = this.offset = 0;
+		this.sentenceStart = this.sentenceEnd = 0;
+		this.runStart = this.runEnd = 0;
+		this.exhausted = false;
+		this.tokens = Collections.<Token>emptyList();
 		this.tokenIndex = 0;
-		this.source = IOUtils.toString(aReader);
-		this.tokens = tokenizer.tokenize(this.source);
+		this.cacheKey = null;
+		this.cached = null;
+		this.cachedIndex = 0;
+		this.recorder = null;
+		this.segmented = null;
+	}
+
+	@Override
+	public void reset(Reader aReader) throws IOException {
+		super.reset(aReader);
+		reset();
 	}
-	
+
 	@Override
 	public void end() throws IOException {
-		int offset = correctOffset(source.length());
+		int offset = correctOffset(this.offset + this.usableLength);
 		offsetAttr.setOffset(offset, offset);
 	}
 
 	@Override
 	public final boolean incrementToken() throws IOException {
-		if (tokenIndex >= tokens.size()) {
-			return false;
+		if (cached != null) {
+			return replay();
 		}
-		
+
+		while (tokenIndex == tokens.size()) {
+			if (runEnd < sentenceEnd) {
+				int type = nextRun();
+				if (type != OTHER) {
+					return emitRun(type);
+				}
+			} else if (sentenceEnd < usableLength) {
+				nextSentence();
+			} else if (!refill()) {
+				if (recorder != null) {
+					cache.put(cacheKey, recorder, cacheGeneration);
+					recorder = null;
+				}
+				return false;
+			} else if (cached != null) {
+				return replay();
+			}
+		}
+
 		clearAttributes();
-		
+
 		Token token = tokens.get(tokenIndex++);
-	
-		String surface = token.getSurfaceForm();
-		int position = token.getPosition();
-		int length = surface.length();
-		
-		termAttr.setEmpty().append(surface);
+
+		int start = runStart + token.getPosition();
+		int length = token.getSurfaceForm().length();
+		int position = offset + start;
+
+		termAttr.copyBuffer(buffer, start, length);
 		offsetAttr.setOffset(correctOffset(position), correctOffset(position+length));
-		typeAttr.setType(token.getPartOfSpeech());
-		baseFormAttr.setBaseForm(token.getBaseForm());
+		posAttr.setToken(token);
+		baseFormAttr.setToken(token);
+		if (recorder != null) {
+			recorder.add(position, position+length, token);
+		}
+		return true;
+	}
+
+	/** Emits the current run as a single token */
+	private boolean emitRun(int type) {
+		clearAttributes();
+
+		Token token = runs.token(type);
+		int length = runEnd - runStart;
+		int position = offset + runStart;
+
+		termAttr.copyBuffer(buffer, runStart, length);
+		offsetAttr.setOffset(correctOffset(position), correctOffset(position+length));
+		posAttr.setToken(token);
+		baseFormAttr.setToken(token);
+		if (recorder != null) {
+			recorder.add(position, position+length, token);
+		}
+		return true;
+	}
+
+	/** Emits the next token cached for the text in the buffer */
+	private boolean replay() {
+		if (cachedIndex >= cached.size()) {
+			return false;
+		}
+
+		clearAttributes();
+
+		int start = cached.startOffset(cachedIndex);
+		int end = cached.endOffset(cachedIndex);
+
+		termAttr.copyBuffer(buffer, start, end - start);
+		offsetAttr.setOffset(correctOffset(start), correctOffset(end));
+		Token token = cached.token(cachedIndex);
+		posAttr.setToken(token);
+		baseFormAttr.setToken(token);
+		cachedIndex++;
 		return true;
 	}
 
+	/**
+	 * Moves to the next sentence of the buffer. A sentence ends at a break
+	 * position, but sentences shorter than {@link #SENTENCEMIN} are joined,
+	 * as spaces from {@link KuromojiNormalizeFilter} would otherwise make
+	 * every word a sentence.
+	 */
+	private void nextSentence() {
+		runEnd = sentenceStart = sentenceEnd;
+		sentenceEnd = segmented != null ? sentenceEnds[sentenceIndex++] : breaker.next();
+	}
+
+	/**
+	 * Moves to the next script run of the sentence and returns its class.
+	 * Runs of other chars are segmented by Viterbi, or their tokens are
+	 * taken if the buffer has been segmented in parallel.
+	 */
+	private int nextRun() {
+		runStart = runEnd;
+		int type = scriptRun(runStart, sentenceStart, sentenceEnd);
+		if (type == OTHER) {
+			if (segmented != null) {
+				tokens = segmented.get(segmentedIndex++);
+			} else if (sentenceCache != null) {
+				tokens = sentenceCache.tokenize(tokenizer, buffer, runStart, runEnd);
+			} else {
+				tokens = tokenizer.tokenize(new String(buffer, runStart, runEnd - runStart));
+			}
+			tokenIndex = 0;
+		}
+		return type;
+	}
+
+	/**
+	 * Sets runEnd to the end of the script run starting at from, in the
+	 * sentence from start to end, and returns its class. Spaces are only a
+	 * run of their own between runs of ASCII letters or digits emitted
+	 * without Kuromoji, or the edges of the sentence. Otherwise they are
+	 * part of the run of other chars they are next to, so that Kuromoji
+	 * segments it after and before a space as it would the whole sentence.
+	 */
+	private int scriptRun(int from, int start, int end) {
+		int type = KuromojiScriptRuns.scriptClass(buffer[from]);
+		int i = from;
+		if (type == SPACE) {
+			// a space run only starts a run after an emitted one or at the start
+			while (i < end && isSpace(buffer[i])) {
+				i++;
+			}
+			if (runs != null && runs.token(SPACE) != null && (i == end || wordEnd(i, start, end) > i)) {
+				runEnd = i;
+				return SPACE;
+			}
+		} else if (type != OTHER) {
+			i = wordEnd(from, start, end);
+			if (i > from) {
+				runEnd = i;
+				return type;
+			}
+			i++;
+		} else {
+			i++;
+		}
+		// other chars, up to the next word emitted without Kuromoji
+		while (i < end && !(isSpace(buffer[i - 1]) && wordEnd(i, start, end) > i)) {
+			i++;
+		}
+		runEnd = i;
+		return OTHER;
+	}
+
+	/**
+	 * Returns the end of the run of ASCII letters or digits at i if it is
+	 * emitted without Kuromoji, that is if it is between spaces or the edges
+	 * of the sentence from start to end, or i otherwise.
+	 */
+	private int wordEnd(int i, int start, int end) {
+		int type = KuromojiScriptRuns.scriptClass(buffer[i]);
+		if (type == OTHER || type == SPACE || runs == null || runs.token(type) == null
+				|| i > start && !isSpace(buffer[i - 1])) {
+			return i;
+		}
+		int j = i + 1;
+		while (j < end && KuromojiScriptRuns.scriptClass(buffer[j]) == type) {
+			j++;
+		}
+		return j == end || isSpace(buffer[j]) ? j : i;
+	}
+
+	private static boolean isSpace(char ch) {
+		return KuromojiScriptRuns.scriptClass(ch) == SPACE;
+	}
+
+	/** Segments all the runs of other chars of the buffer on the parallel pool. */
+	private void segmentInParallel() {
+		int sentences = 0, runs = 0;
+		for (int end = breaker.next(); end != SentenceBreaker.DONE; end = breaker.next()) {
+			if (sentences == sentenceEnds.length) {
+				sentenceEnds = Arrays.copyOf(sentenceEnds, Math.max(16, sentences * 2));
+			}
+			int start = sentences == 0 ? 0 : sentenceEnds[sentences - 1];
+			sentenceEnds[sentences++] = end;
+			for (runEnd = start; runEnd < end;) {
+				int runStart = runEnd;
+				if (scriptRun(runStart, start, end) == OTHER) {
+					if (runs == runStarts.length) {
+						runStarts = Arrays.copyOf(runStarts, Math.max(16, runs * 2));
+						runEnds = Arrays.copyOf(runEnds, runStarts.length);
+					}
+					runStarts[runs] = runStart;
+					runEnds[runs++] = runEnd;
+				}
+			}
+		}
+		runEnd = 0;
+		segmented = parallel.segment(tokenizer, sentenceCache, buffer, runStarts, runEnds, runs);
+		segmentedIndex = sentenceIndex = 0;
+	}
+
+	/**
+	 * Refill the buffer, accumulating the offset and setting usableLength
+	 * to the last unambiguous break position, growing the buffer until it
+	 * has one.
+	 *
+	 * @return false if the reader has been emptied
+	 */
+	private boolean refill() throws IOException {
+		if (exhausted && usableLength == length) {
+			return false;
+		}
+
+		offset += usableLength;
+		int leftover = length - usableLength;
+		System.arraycopy(buffer, usableLength, buffer, 0, leftover);
+		length = leftover;
+		fill();
+		while (!exhausted && parallel != null && buffer.length < parallel.threshold()) {
+			// the document may be long enough to be segmented in parallel
+			buffer = Arrays.copyOf(buffer, Math.min(parallel.threshold(), buffer.length * 2));
+			fill();
+		}
+		while (true) {
+			if (exhausted) {
+				// reader has been emptied, process the rest
+				usableLength = length;
+				break;
+			}
+			// still more data to be read, find a safe-stopping place
+			usableLength = findSafeEnd();
+			if (usableLength >= 0) {
+				break;
+			}
+			if (buffer.length >= MAX_BUFFERMAX) {
+				// more than MAX_BUFFERMAX of text without breaks, gonna possibly truncate tokens
+				// but never split a surrogate pair
+				usableLength = Character.isHighSurrogate(buffer[length - 1]) ? length - 1 : length;
+				break;
+			}
+			buffer = Arrays.copyOf(buffer, Math.min(MAX_BUFFERMAX, buffer.length * 2));
+			fill();
+		}
+
+		sentenceStart = sentenceEnd = runStart = runEnd = 0;
+		breaker.setText(buffer, 0, usableLength);
+		segmented = null;
+
+		if (parallel != null && (offset > 0 || !exhausted)) {
+			// the document is longer than the parallel threshold
+			segmentInParallel();
+		}
+
+		if (cache != null && offset == 0 && exhausted && cache.accept(length)) {
+			// the whole text is in the buffer
+			cacheKey = new String(buffer, 0, length);
+			cached = cache.get(cacheKey);
+			if (cached == null) {
+				recorder = new KuromojiAnalysisCache.Recorder();
+			}
+		}
+		return true;
+	}
+
+	/** Reads until the buffer is full or the reader has been emptied. */
+	private void fill() throws IOException {
+		while (!exhausted && length < buffer.length) {
+			int returned = input.read(buffer, length, buffer.length - length);
+			if (returned < 0) {
+				exhausted = true;
+			} else {
+				length += returned;
+			}
+		}
+	}
+
+	/** Returns the last unambiguous break position in the buffer, or -1 if there is none. */
+	private int findSafeEnd() {
+		for (int i = length - 1; i >= 0; i--) {
+			if (isSafeEnd(buffer[i])) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * For sentence tokenization, these are the unambiguous break positions.
+	 * {@link KuromojiNormalizeFilter} replaces punctuations with spaces,
+	 * so spaces are also treated as break positions.
+	 *
+	 * @see JapaneseSentenceBreaker#isClauseEnd(char)
+	 */
+	protected boolean isSafeEnd(char ch) {
+		return JapaneseSentenceBreaker.isClauseEnd(ch);
+	}
+
 }
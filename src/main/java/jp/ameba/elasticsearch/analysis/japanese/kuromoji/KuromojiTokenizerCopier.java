@@ -0,0 +1,204 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+
+/**
+ * Copies a Kuromoji tokenizer with another user dictionary, sharing the
+ * system dictionary, the unknown word dictionary and the connection costs
+ * it has loaded.
+ * <p>
+ * Kuromoji 0.7.7 loads them again for every tokenizer it builds, and has
+ * no API to give a tokenizer another user dictionary. The user dictionary
+ * parsed by a builder is taken from it, and the tokenizer is copied field
+ * by field with the new user dictionary in place of the previous one, as
+ * are the Kuromoji objects and the maps of dictionaries it refers to which
+ * refer to the previous one. Tokenizers are not modified once built, so
+ * the copy shares everything else.
+ * <p>
+ * If the tokenizer is not laid out that way, or words added to the user
+ * dictionary are not user words of the copy, no copy is returned and the
+ * tokenizer has to be built.
+ *
+ * @author namura_suguru
+ */
+final class KuromojiTokenizerCopier {
+
+	/** objects are looked into up to this depth from the tokenizer */
+	private static final int MAX_DEPTH = 2;
+
+	/** words of the user dictionary checked in the copy */
+	private static final int MAX_CHECKED_WORDS = 16;
+
+	private static final String KUROMOJI_PACKAGE = "org.atilika.kuromoji.";
+
+	private static final Object UNSAFE;
+
+	private static final Method ALLOCATE_INSTANCE;
+
+	static {
+		Object unsafe = null;
+		Method allocateInstance = null;
+		try {
+			Class<?> type = Class.forName("sun.misc.Unsafe");
+			Field field = type.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+			allocateInstance = type.getMethod("allocateInstance", Class.class);
+		} catch (Exception e) {
+			// tokenizers are always built then
+		}
+		UNSAFE = unsafe;
+		ALLOCATE_INSTANCE = allocateInstance;
+	}
+
+	/** user dictionary parsed by the builder */
+	private final Object userDictionary;
+
+	private int replaced = 0;
+
+	private KuromojiTokenizerCopier(Object userDictionary) {
+		this.userDictionary = userDictionary;
+	}
+
+	/**
+	 * Returns a copy of the tokenizer with the user dictionary parsed by the
+	 * builder, or null if it has to be built. Words are some words added to
+	 * the user dictionary, which must be user words of the copy.
+	 */
+	static Tokenizer copy(Tokenizer tokenizer, Tokenizer.Builder builder, Collection<String> words) {
+		if (ALLOCATE_INSTANCE == null) {
+			return null;
+		}
+		try {
+			Object userDictionary = userDictionary(builder);
+			if (userDictionary == null) {
+				return null;
+			}
+			KuromojiTokenizerCopier copier = new KuromojiTokenizerCopier(userDictionary);
+			Object copy = copier.rebind(tokenizer, 0);
+			if (copier.replaced == 0 || !(copy instanceof Tokenizer) || !isUserWords((Tokenizer) copy, words)) {
+				return null;
+			}
+			return (Tokenizer) copy;
+		} catch (Exception e) {
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+
+	/** returns the only Kuromoji object of the builder */
+	private static Object userDictionary(Tokenizer.Builder builder) throws IllegalAccessException {
+		Object userDictionary = null;
+		for (Field field : builder.getClass().getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+				continue;
+			}
+			field.setAccessible(true);
+			Object value = field.get(builder);
+			if (value == null || value instanceof Enum || !isKuromoji(value.getClass())) {
+				continue;
+			}
+			if (userDictionary != null) {
+				return null;
+			}
+			userDictionary = value;
+		}
+		return userDictionary;
+	}
+
+	private static boolean isKuromoji(Class<?> type) {
+		return type.getName().startsWith(KUROMOJI_PACKAGE);
+	}
+
+	private static boolean isUserWords(Tokenizer tokenizer, Collection<String> words) {
+		int checked = 0;
+		for (String word : words) {
+			if (checked++ == MAX_CHECKED_WORDS) {
+				break;
+			}
+			for (Token token : tokenizer.tokenize(word)) {
+				if (!token.isUser()) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the object, or a copy of it if it refers to a previous user
+	 * dictionary, or the new user dictionary if it is a previous one.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object rebind(Object object, int depth) throws Exception {
+		if (object.getClass() == userDictionary.getClass()) {
+			replaced++;
+			return userDictionary;
+		}
+		if (depth == MAX_DEPTH) {
+			return object;
+		}
+		if (object instanceof EnumMap || object instanceof HashMap) {
+			Map copy = null;
+			for (Map.Entry entry : ((Map<?, ?>) object).entrySet()) {
+				Object value = entry.getValue();
+				Object rebound = value == null ? null : rebind(value, depth + 1);
+				if (rebound != value) {
+					if (copy == null) {
+						copy = object instanceof EnumMap ? new EnumMap((EnumMap) object) : new HashMap((HashMap) object);
+					}
+					copy.put(entry.getKey(), rebound);
+				}
+			}
+			return copy != null ? copy : object;
+		}
+		if (!isKuromoji(object.getClass())) {
+			return object;
+		}
+		Object copy = null;
+		for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+					continue;
+				}
+				field.setAccessible(true);
+				Object value = field.get(object);
+				if (value == null) {
+					continue;
+				}
+				Object rebound = rebind(value, depth + 1);
+				if (rebound != value) {
+					if (copy == null) {
+						copy = shallowCopy(object);
+					}
+					field.set(copy, rebound);
+				}
+			}
+		}
+		return copy != null ? copy : object;
+	}
+
+	private static Object shallowCopy(Object object) throws Exception {
+		Object copy = ALLOCATE_INSTANCE.invoke(UNSAFE, object.getClass());
+		for (Class<?> type = object.getClass(); type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					field.set(copy, field.get(object));
+				}
+			}
+		}
+		return copy;
+	}
+
+}
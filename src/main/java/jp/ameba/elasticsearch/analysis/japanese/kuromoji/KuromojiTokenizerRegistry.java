@@ -0,0 +1,296 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.threadpool.ThreadPool;
+
+/**
+ * Node level registry of Kuromoji tokenizers.
+ * <p>
+ * Building a Kuromoji tokenizer loads the system dictionary, so the
+ * tokenizers are shared by every analyzer of every index on the node which
+ * uses the same configuration. They are reference counted and dropped when
+ * the last analyzer using them has been closed.
+ * <p>
+ * Tokenizers with a user dictionary check every
+ * <code>japanese.user_dictionary.reload_interval</code> (node setting,
+ * default 60s) whether the file has changed, and are rebuilt in the
+ * background if so, sharing the system dictionary of the previous one when
+ * it can. Analyzers use the new tokenizer from their next document, and the
+ * analysis caches registered with the entry are cleared once.
+ * <p>
+ * With <code>japanese.sentence_cache.enabled</code> (node setting, default
+ * false), the tokenizers share a {@link KuromojiSentenceCache} of
+ * <code>japanese.sentence_cache.size</code> (default 32mb) for sentences of
+ * up to <code>japanese.sentence_cache.max_length</code> chars (default 256).
+ * The size bounds the sentences of every configuration together.
+ *
+ * @author namura_suguru
+ */
+public class KuromojiTokenizerRegistry extends AbstractComponent {
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	private final ThreadPool threadPool;
+
+	private final TimeValue reloadInterval;
+
+	/** sentence cache of every tokenizer, null if disabled */
+	private final KuromojiSentenceCache sentenceCache;
+
+	public KuromojiTokenizerRegistry(Settings settings) {
+		this(settings, null);
+	}
+
+	@Inject
+	public KuromojiTokenizerRegistry(Settings settings, ThreadPool threadPool) {
+		super(settings);
+		this.threadPool = threadPool;
+		this.reloadInterval = settings.getAsTime("japanese.user_dictionary.reload_interval", TimeValue.timeValueSeconds(60));
+		if (settings.getAsBoolean("japanese.sentence_cache.enabled", false)) {
+			this.sentenceCache = new KuromojiSentenceCache(
+					settings.getAsBytesSize("japanese.sentence_cache.size", new ByteSizeValue(32, ByteSizeUnit.MB)).bytes(),
+					settings.getAsInt("japanese.sentence_cache.max_length", 256));
+		} else {
+			this.sentenceCache = null;
+		}
+	}
+
+	/**
+	 * Returns the shared tokenizer for the configuration, loading the
+	 * dictionary if no analyzer uses it yet.
+	 * Each call must be paired with {@link #release(Entry)}.
+	 */
+	public Entry acquire(Mode mode, boolean split) {
+		return acquire(mode, split, null);
+	}
+
+	/**
+	 * Returns the shared tokenizer for the configuration and user dictionary
+	 * file, which may be null.
+	 * Each call must be paired with {@link #release(Entry)}.
+	 */
+	public synchronized Entry acquire(Mode mode, boolean split, File userDictionary) {
+		String key = mode.name() + "/" + split;
+		if (userDictionary != null) {
+			key += "/" + userDictionary.getAbsolutePath();
+		}
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			long start = System.currentTimeMillis();
+			KuromojiUserDictionary dictionary = null;
+			Tokenizer tokenizer;
+			if (userDictionary == null) {
+				tokenizer = builder(mode, split).build();
+			} else {
+				dictionary = new KuromojiUserDictionary(userDictionary);
+				try {
+					tokenizer = dictionary.build(builder(mode, split));
+				} catch (IOException e) {
+					throw new ElasticSearchIllegalArgumentException("failed to load user dictionary [" + userDictionary + "]", e);
+				}
+			}
+			logger.debug("loaded kuromoji tokenizer [{}] in [{}]ms", key, System.currentTimeMillis() - start);
+			if (sentenceCache != null) {
+				sentenceCache.register(tokenizer);
+			}
+			entry = new Entry(key, mode, split, tokenizer, dictionary, sentenceCache);
+			entries.put(key, entry);
+			if (dictionary != null && threadPool != null && reloadInterval.millis() > 0) {
+				threadPool.schedule(reloadInterval, ThreadPool.Names.CACHED, new Reloader(entry));
+			}
+		}
+		entry.refCount++;
+		return entry;
+	}
+
+	private static Tokenizer.Builder builder(Mode mode, boolean split) {
+		return Tokenizer.builder().mode(mode).split(split);
+	}
+
+	/**
+	 * Releases the tokenizer acquired with {@link #acquire(Mode, boolean, File)}.
+	 */
+	public void release(Entry entry) {
+		synchronized (this) {
+			if (--entry.refCount > 0) {
+				return;
+			}
+			entries.remove(entry.key);
+			entry.released = true;
+			logger.debug("released kuromoji tokenizer [{}]", entry.key);
+		}
+		if (sentenceCache != null) {
+			synchronized (entry.reloadLock) {
+				// after a reload in progress, later ones see the entry released
+				sentenceCache.invalidate(entry.tokenizer);
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of tokenizers currently loaded.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Rebuilds the tokenizer of the entry if its user dictionary has
+	 * changed, and returns true if it has been replaced. Reloads of an entry
+	 * are serialized, so a concurrent call waits for the reload in progress
+	 * and then finds the file unchanged.
+	 */
+	public boolean reload(Entry entry) {
+		KuromojiUserDictionary dictionary = entry.dictionary;
+		if (dictionary == null) {
+			return false;
+		}
+		synchronized (entry.reloadLock) {
+			if (entry.released || !dictionary.modified()) {
+				return false;
+			}
+			Tokenizer tokenizer;
+			try {
+				tokenizer = dictionary.build(builder(entry.mode, entry.split), entry.tokenizer);
+			} catch (IOException e) {
+				logger.warn("failed to reload user dictionary [{}], keeping the previous one", e, dictionary.file());
+				return false;
+			}
+			Tokenizer previous = entry.tokenizer;
+			if (entry.sentenceCache != null) {
+				entry.sentenceCache.register(tokenizer);
+			}
+			entry.tokenizer = tokenizer;
+			if (entry.sentenceCache != null) {
+				entry.sentenceCache.invalidate(previous);
+			}
+			for (KuromojiAnalysisCache cache : entry.caches) {
+				// results of the previous tokenizer are stale
+				cache.clear();
+			}
+			logger.info("reloaded user dictionary [{}] with [{}] entries", dictionary.file(), dictionary.entries());
+			return true;
+		}
+	}
+
+	/**
+	 * Checks the user dictionary of an entry, and schedules itself again
+	 * until the entry is released.
+	 */
+	private class Reloader implements Runnable {
+
+		private final Entry entry;
+
+		Reloader(Entry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void run() {
+			if (entry.released) {
+				return;
+			}
+			try {
+				reload(entry);
+			} finally {
+				if (!entry.released) {
+					threadPool.schedule(reloadInterval, ThreadPool.Names.CACHED, this);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A shared tokenizer
+	 */
+	public static class Entry {
+
+		private final String key;
+
+		private final Mode mode;
+
+		private final boolean split;
+
+		/** replaced when the user dictionary is reloaded */
+		private volatile Tokenizer tokenizer;
+
+		private final KuromojiUserDictionary dictionary;
+
+		private final KuromojiSentenceCache sentenceCache;
+
+		/** held while the tokenizer is reloaded */
+		private final Object reloadLock = new Object();
+
+		/** analysis caches of the analyzers using the tokenizer */
+		private final List<KuromojiAnalysisCache> caches = new CopyOnWriteArrayList<KuromojiAnalysisCache>();
+
+		private int refCount = 0;
+
+		private volatile boolean released = false;
+
+		Entry(String key, Mode mode, boolean split, Tokenizer tokenizer, KuromojiUserDictionary dictionary,
+				KuromojiSentenceCache sentenceCache) {
+			this.key = key;
+			this.mode = mode;
+			this.split = split;
+			this.tokenizer = tokenizer;
+			this.dictionary = dictionary;
+			this.sentenceCache = sentenceCache;
+		}
+
+		public Tokenizer tokenizer() {
+			return tokenizer;
+		}
+
+		/**
+		 * Returns the user dictionary, or null if there is none
+		 */
+		public KuromojiUserDictionary dictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * Returns true if the user dictionary has words with ASCII letters or
+		 * digits, which Kuromoji has to look up
+		 */
+		public boolean hasAsciiUserWords() {
+			return dictionary != null && dictionary.hasAsciiEntries();
+		}
+
+		/**
+		 * Returns the sentence cache of the node, or null if it is disabled
+		 */
+		public KuromojiSentenceCache sentenceCache() {
+			return sentenceCache;
+		}
+
+		/**
+		 * Registers an analysis cache to clear when the tokenizer is reloaded
+		 */
+		void addCache(KuromojiAnalysisCache cache) {
+			caches.add(cache);
+		}
+
+		void removeCache(KuromojiAnalysisCache cache) {
+			caches.remove(cache);
+		}
+
+	}
+
+}
@@ -1,52 +1,92 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
 
 import java.io.IOException;
+import java.util.BitSet;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.PartOfSpeechAttribute;
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStats;
 
 import org.apache.lucene.analysis.FilteringTokenFilter;
 import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
 
 /**
  * 品詞タイプによるストッパー
+ * <p>
+ * The decision for each part of speech is made once and kept in a
+ * {@link BitSet} indexed by the part of speech id.
+ * Removed tokens are counted in {@link AnalysisStats} if given.
  */
 public class KuromojiTypeFilter extends FilteringTokenFilter {
 	
-	private char[] stopPrefixes = {
-		'接', // 接続,接頭
-		'助', // 助詞,助動詞
-		'記', // 記号
-		'そ', // その他
-		'フ', // フィラー
-		'非', // 非言語音
-	};
+	private final KuromojiStopTags stopTags;
+	
+	private final BitSet stopped;
+	
+	/** parts of speech below this id are decided */
+	private int decided;
+	
+	private final AnalysisStats stats;
+	
+	/** tokens removed from the current stream */
+	private int dropped;
 	
-	private String[] stopTags = {
-			"動詞,非自立"
-	};
+	public KuromojiTypeFilter(
+			boolean enablePositionIncrements,
+			TokenStream input) {
+		this(enablePositionIncrements, KuromojiStopTags.defaults(), null, input);
+	}
 	
 	public KuromojiTypeFilter(
 			boolean enablePositionIncrements,
+			KuromojiStopTags stopTags,
+			AnalysisStats stats,
 			TokenStream input) {
 		super(enablePositionIncrements, input);
+		this.stopTags = stopTags;
+		this.stopped = stopTags.stopped();
+		this.decided = stopTags.known();
+		this.stats = stats;
 	}
 
-	TypeAttribute typeAttr = addAttribute(TypeAttribute.class);
+	PartOfSpeechAttribute posAttr = addAttribute(PartOfSpeechAttribute.class);
 
 	@Override
 	protected final boolean accept() throws IOException {
-		String type = typeAttr.type();
-		char first = type.charAt(0);
-		for (int i = 0; i < stopPrefixes.length; i++) {
-			if (first == stopPrefixes[i]) {
+		int id = posAttr.getPartOfSpeechId();
+		if (id < 0) {
+			// one of too many parts of speech from user dictionaries
+			if (stopTags.matches(posAttr.getPartOfSpeech())) {
+				dropped++;
 				return false;
 			}
+			return true;
 		}
-		for (int i = 0; i < stopTags.length; i++) {
-			if (type.startsWith(stopTags[i])) {
-				return false;
+		while (id >= decided) {
+			// found a new part of speech
+			if (stopTags.matches(decided)) {
+				stopped.set(decided);
 			}
+			decided++;
+		}
+		if (stopped.get(id)) {
+			dropped++;
+			return false;
 		}
 		return true;
 	}
 	
+	@Override
+	public void reset() throws IOException {
+		super.reset();
+		dropped = 0;
+	}
+	
+	@Override
+	public void end() throws IOException {
+		super.end();
+		if (stats != null) {
+			stats.dropped(dropped);
+		}
+	}
+	
 }
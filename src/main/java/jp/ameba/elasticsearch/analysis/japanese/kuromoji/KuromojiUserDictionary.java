@@ -0,0 +1,248 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.atilika.kuromoji.Tokenizer;
+import org.elasticsearch.common.base.Charsets;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.env.Environment;
+
+/**
+ * User dictionary file of Kuromoji tokenizers, with its reload statistics.
+ * <p>
+ * The file is in the Kuromoji user dictionary format, one
+ * <code>surface,segmentation,readings,part of speech</code> entry per line.
+ * It is read at once, so that a tokenizer is always built from a single
+ * version of the file. When the file is reloaded, the previous tokenizer
+ * is copied with the new user dictionary if possible, see
+ * {@link KuromojiTokenizerCopier}, so that the system dictionary is not
+ * loaded again.
+ *
+ * @author namura_suguru
+ */
+public class KuromojiUserDictionary implements ToXContent {
+
+	private final File file;
+
+	/** last modification and length of the file last loaded, or which failed to load */
+	private long lastModified = -1, length = -1;
+
+	private int entries = 0;
+
+	/** true once a version of the file has had a word with ASCII letters or digits */
+	private boolean asciiEntries = false;
+
+	/** surfaces of the entries of the file last loaded */
+	private Set<String> surfaces = Collections.emptySet();
+
+	private long loads = 0, failures = 0, reuses = 0;
+
+	private long lastLoadMillis = 0, totalLoadMillis = 0, loadedAt = 0;
+
+	public KuromojiUserDictionary(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Returns the file of <code>user_dictionary</code>, relative to the
+	 * config directory, or null if it is not set
+	 */
+	public static File file(Environment env, Settings settings) {
+		String path = settings.get("user_dictionary");
+		if (path == null) {
+			return null;
+		}
+		File file = new File(path);
+		if (!file.isAbsolute()) {
+			file = new File(env.configFile(), path);
+		}
+		return file;
+	}
+
+	public File file() {
+		return file;
+	}
+
+	/**
+	 * Returns true if the file has changed since it was last loaded, or
+	 * since it last failed to load
+	 */
+	public synchronized boolean modified() {
+		return file.lastModified() != lastModified || file.length() != length;
+	}
+
+	/**
+	 * Builds a tokenizer with the current content of the file.
+	 */
+	public Tokenizer build(Tokenizer.Builder builder) throws IOException {
+		return build(builder, null);
+	}
+
+	/**
+	 * Builds a tokenizer with the current content of the file, copying the
+	 * previous tokenizer of the file if it is not null and can be copied.
+	 */
+	public Tokenizer build(Tokenizer.Builder builder, Tokenizer previous) throws IOException {
+		long start = System.currentTimeMillis();
+		attempted(file.lastModified(), file.length());
+		byte[] content;
+		try {
+			content = Streams.copyToByteArray(file);
+		} catch (IOException e) {
+			failed();
+			throw e;
+		}
+		Set<String> surfaces = surfaces(content);
+		Tokenizer tokenizer = null;
+		boolean copied = false;
+		try {
+			builder.userDictionary(new ByteArrayInputStream(content));
+			if (previous != null) {
+				tokenizer = KuromojiTokenizerCopier.copy(previous, builder, added(surfaces));
+				copied = tokenizer != null;
+			}
+			if (!copied) {
+				tokenizer = builder.build();
+			}
+		} catch (RuntimeException e) {
+			// malformed entries are only found by Kuromoji
+			failed();
+			throw new IOException("invalid user dictionary [" + file + "]: " + e.getMessage(), e);
+		}
+		loaded(count(content), surfaces, hasAsciiEntries(content), copied, System.currentTimeMillis() - start);
+		return tokenizer;
+	}
+
+	/** surfaces of the entries, skipping empty lines and # comments */
+	private static Set<String> surfaces(byte[] content) {
+		Set<String> surfaces = new HashSet<String>();
+		for (String line : new String(content, Charsets.UTF_8).split("\n")) {
+			line = line.trim();
+			if (line.length() > 0 && !line.startsWith("#")) {
+				int end = line.indexOf(',');
+				surfaces.add(end < 0 ? line : line.substring(0, end));
+			}
+		}
+		return surfaces;
+	}
+
+	/** unquoted surfaces which the file last loaded did not have */
+	private synchronized List<String> added(Set<String> surfaces) {
+		List<String> added = new ArrayList<String>();
+		for (String surface : surfaces) {
+			if (!this.surfaces.contains(surface) && !surface.startsWith("\"")) {
+				added.add(surface);
+			}
+		}
+		return added;
+	}
+
+	/** counts the entries, skipping empty lines and # comments */
+	private static int count(byte[] content) {
+		int count = 0;
+		for (String line : new String(content, Charsets.UTF_8).split("\n")) {
+			line = line.trim();
+			if (line.length() > 0 && !line.startsWith("#")) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** true if the surface of an entry has ASCII letters or digits */
+	private static boolean hasAsciiEntries(byte[] content) {
+		for (String line : new String(content, Charsets.UTF_8).split("\n")) {
+			line = line.trim();
+			if (line.startsWith("#")) {
+				continue;
+			}
+			// a quoted surface may have commas, the whole line is checked then
+			int end = line.indexOf(',');
+			if (end < 0 || line.startsWith("\"")) {
+				end = line.length();
+			}
+			for (int i = 0; i < end; i++) {
+				int type = KuromojiScriptRuns.scriptClass(line.charAt(i));
+				if (type == KuromojiScriptRuns.ALPHA || type == KuromojiScriptRuns.NUMERIC) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private synchronized void attempted(long modified, long size) {
+		this.lastModified = modified;
+		this.length = size;
+	}
+
+	private synchronized void loaded(int entries, Set<String> surfaces, boolean asciiEntries, boolean copied, long millis) {
+		this.entries = entries;
+		this.surfaces = surfaces;
+		if (copied) {
+			this.reuses++;
+		}
+		this.asciiEntries |= asciiEntries;
+		this.loads++;
+		this.lastLoadMillis = millis;
+		this.totalLoadMillis += millis;
+		this.loadedAt = System.currentTimeMillis();
+	}
+
+	private synchronized void failed() {
+		failures++;
+	}
+
+	public synchronized int entries() {
+		return entries;
+	}
+
+	/**
+	 * Returns true if a version of the file loaded so far has had entries
+	 * with ASCII letters or digits. It is set before the tokenizer is built
+	 * and never reset, so that it holds for every tokenizer of the file.
+	 */
+	public synchronized boolean hasAsciiEntries() {
+		return asciiEntries;
+	}
+
+	public synchronized long loads() {
+		return loads;
+	}
+
+	public synchronized long failures() {
+		return failures;
+	}
+
+	/**
+	 * Returns the number of loads which did not load the system dictionary
+	 * again
+	 */
+	public synchronized long reuses() {
+		return reuses;
+	}
+
+	@Override
+	public synchronized XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.field("path", file.getPath());
+		builder.field("entries", entries);
+		builder.field("loads", loads);
+		builder.field("failures", failures);
+		builder.field("system_dictionary_reuses", reuses);
+		builder.field("last_load_time_in_millis", lastLoadMillis);
+		builder.field("total_load_time_in_millis", totalLoadMillis);
+		builder.field("loaded_at", loadedAt);
+		return builder;
+	}
+
+}
@@ -0,0 +1,139 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import java.lang.reflect.Field;
+
+import org.atilika.kuromoji.Token;
+
+/**
+ * Parts of speech and base forms of the words of the system dictionary,
+ * kept by word id, so that they are read from a token without building
+ * the Strings of its features every time.
+ * <p>
+ * Kuromoji numbers the words of its dictionaries, but the number is only
+ * a private field of the token, which is read by reflection. The words are
+ * kept in a fixed number of slots shared by every tokenizer, a word taking
+ * the slot of another one when they collide. Words of user dictionaries,
+ * which change when they are reloaded, and every word if the token has no
+ * such field, are not kept.
+ *
+ * @author namura_suguru
+ */
+public final class KuromojiWords {
+
+	private static final int SLOTS = 1 << 16;
+
+	private static final Field WORD_ID = wordIdField();
+
+	/**
+	 * words by the hash of their id, written without synchronization as
+	 * words are immutable, and a word read from a slot is checked by its id
+	 */
+	private static final Word[] words = new Word[SLOTS];
+
+	private KuromojiWords() {
+	}
+
+	private static Field wordIdField() {
+		try {
+			Field field = Token.class.getDeclaredField("wordId");
+			if (field.getType() != int.class) {
+				return null;
+			}
+			field.setAccessible(true);
+			return field;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the word of the token, or null if it is not kept
+	 */
+	public static Word word(Token token) {
+		if (WORD_ID == null || token.isUser()) {
+			return null;
+		}
+		int wordId;
+		try {
+			wordId = WORD_ID.getInt(token);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+		boolean unknown = token.isUnknown();
+		int slot = hash(wordId, unknown) & (SLOTS - 1);
+		Word word = words[slot];
+		if (word != null && word.wordId == wordId && word.unknown == unknown) {
+			return word;
+		}
+		word = Word.of(token, wordId, unknown);
+		if (word != null) {
+			words[slot] = word;
+		}
+		return word;
+	}
+
+	private static int hash(int wordId, boolean unknown) {
+		int h = wordId * 0x9E3779B9 + (unknown ? 1 : 0);
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Part of speech and base form of a word
+	 */
+	public static final class Word {
+
+		private final int wordId;
+
+		private final boolean unknown;
+
+		private final String partOfSpeech;
+
+		private final int partOfSpeechId;
+
+		private final char[] baseForm;
+
+		private Word(int wordId, boolean unknown, String partOfSpeech, char[] baseForm) {
+			this.wordId = wordId;
+			this.unknown = unknown;
+			this.partOfSpeech = partOfSpeech;
+			this.partOfSpeechId = KuromojiPartOfSpeech.id(partOfSpeech);
+			this.baseForm = baseForm;
+		}
+
+		/**
+		 * Returns the word of the token, or null if its base form depends
+		 * on its surface form
+		 */
+		private static Word of(Token token, int wordId, boolean unknown) {
+			String baseForm = token.getBaseForm();
+			if (baseForm == null || baseForm.equals(token.getSurfaceForm())) {
+				baseForm = null;
+			} else if (unknown) {
+				// the surface of an unknown word is not given by its id
+				return null;
+			}
+			return new Word(wordId, unknown, token.getPartOfSpeech(), baseForm == null ? null : baseForm.toCharArray());
+		}
+
+		public String partOfSpeech() {
+			return partOfSpeech;
+		}
+
+		/**
+		 * Returns the id of the part of speech, see {@link KuromojiPartOfSpeech#id(String)}
+		 */
+		public int partOfSpeechId() {
+			return partOfSpeechId;
+		}
+
+		/**
+		 * Returns the base form, or null if it is the same as the surface form.
+		 * The array must not be modified.
+		 */
+		public char[] baseForm() {
+			return baseForm;
+		}
+
+	}
+
+}
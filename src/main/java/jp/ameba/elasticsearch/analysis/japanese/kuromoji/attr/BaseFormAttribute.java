@@ -1,11 +1,44 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr;
 
 import org.apache.lucene.util.Attribute;
+import org.atilika.kuromoji.Token;
 
+/**
+ * Base form of a token, kept in a reusable char buffer.
+ * <p>
+ * In most cases the base form is the same as the surface form, which is
+ * flagged by {@link #isSurfaceForm()} and then nothing is copied.
+ */
 public interface BaseFormAttribute extends Attribute {
 	
+	/**
+	 * Returns the base form, or null if it is the same as the surface form
+	 */
 	String getBaseForm();
 
+	/**
+	 * Sets the base form, null means the same as the surface form
+	 */
 	void setBaseForm(String baseForm);
 	
+	/**
+	 * Sets the token whose base form is looked up when it is read
+	 */
+	void setToken(Token token);
+	
+	/**
+	 * Returns true if the base form is the same as the surface form
+	 */
+	boolean isSurfaceForm();
+	
+	/**
+	 * Returns the buffer of the base form, valid up to {@link #baseFormLength()}
+	 */
+	char[] baseFormBuffer();
+	
+	/**
+	 * Returns the length of the base form, 0 if it is the surface form
+	 */
+	int baseFormLength();
+	
 }
@@ -1,31 +1,135 @@
 package jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr;
 
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiWords;
+
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+import org.atilika.kuromoji.Token;
 
 public class BaseFormAttributeImpl extends AttributeImpl implements BaseFormAttribute {
 	
 	private static final long serialVersionUID = 1779658631803091844L;
 	
-	private String baseForm;
+	private Token token;
+	
+	private boolean surfaceForm = true;
+	
+	private char[] buffer = new char[16];
+	
+	private int length = 0;
 
 	@Override
 	public String getBaseForm() {
-		return baseForm;
+		resolve();
+		return surfaceForm ? null : new String(buffer, 0, length);
 	}
 
 	@Override
 	public void setBaseForm(String baseForm) {
-		this.baseForm = baseForm;
+		this.token = null;
+		copy(baseForm);
+	}
+
+	@Override
+	public void setToken(Token token) {
+		this.token = token;
+	}
+
+	@Override
+	public boolean isSurfaceForm() {
+		resolve();
+		return surfaceForm;
+	}
+
+	@Override
+	public char[] baseFormBuffer() {
+		resolve();
+		return buffer;
+	}
+
+	@Override
+	public int baseFormLength() {
+		resolve();
+		return length;
+	}
+
+	/** looks up the base form of the token, from {@link KuromojiWords} if the word is kept there */
+	private void resolve() {
+		if (token != null) {
+			KuromojiWords.Word word = KuromojiWords.word(token);
+			if (word != null) {
+				copy(word.baseForm());
+			} else {
+				String baseForm = token.getBaseForm();
+				copy(baseForm == null || baseForm.equals(token.getSurfaceForm()) ? null : baseForm);
+			}
+			token = null;
+		}
+	}
+
+	private void copy(char[] baseForm) {
+		if (baseForm == null) {
+			surfaceForm = true;
+			length = 0;
+		} else {
+			surfaceForm = false;
+			length = baseForm.length;
+			if (buffer.length < length) {
+				buffer = new char[ArrayUtil.oversize(length, 2)];
+			}
+			System.arraycopy(baseForm, 0, buffer, 0, length);
+		}
+	}
+
+	private void copy(String baseForm) {
+		if (baseForm == null) {
+			surfaceForm = true;
+			length = 0;
+		} else {
+			surfaceForm = false;
+			length = baseForm.length();
+			if (buffer.length < length) {
+				buffer = new char[ArrayUtil.oversize(length, 2)];
+			}
+			baseForm.getChars(0, length, buffer, 0);
+		}
 	}
 
 	@Override
 	public void clear() {
-		this.baseForm = "";
+		this.token = null;
+		this.surfaceForm = true;
+		this.length = 0;
 	}
 
 	@Override
 	public void copyTo(AttributeImpl target) {
-		((BaseFormAttribute) target).setBaseForm(baseForm);
+		if (target instanceof BaseFormAttributeImpl) {
+			BaseFormAttributeImpl t = (BaseFormAttributeImpl) target;
+			t.token = token;
+			t.surfaceForm = surfaceForm;
+			t.length = length;
+			if (t.buffer.length < length) {
+				t.buffer = new char[buffer.length];
+			}
+			System.arraycopy(buffer, 0, t.buffer, 0, length);
+		} else {
+			((BaseFormAttribute) target).setBaseForm(getBaseForm());
+		}
+	}
+
+	@Override
+	public Object clone() {
+		BaseFormAttributeImpl t = (BaseFormAttributeImpl) super.clone();
+		t.buffer = new char[buffer.length];
+		System.arraycopy(buffer, 0, t.buffer, 0, length);
+		return t;
+	}
+
+	@Override
+	public void reflectWith(AttributeReflector reflector) {
+		reflector.reflect(BaseFormAttribute.class, "baseForm", getBaseForm());
 	}
 
 }
@@ -0,0 +1,25 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr;
+
+import org.apache.lucene.util.Attribute;
+import org.atilika.kuromoji.Token;
+
+/**
+ * Part of speech of a Kuromoji token, which is looked up from the
+ * dictionary only when it is read.
+ */
+public interface PartOfSpeechAttribute extends Attribute {
+	
+	String getPartOfSpeech();
+	
+	/**
+	 * Returns the number of the part of speech, or -1 if it has none
+	 * 
+	 * @see jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiPartOfSpeech#id(String)
+	 */
+	int getPartOfSpeechId();
+	
+	void setPartOfSpeech(String partOfSpeech);
+	
+	void setToken(Token token);
+	
+}
@@ -0,0 +1,110 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiPartOfSpeech;
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.KuromojiWords;
+
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+import org.apache.lucene.util.AttributeImpl;
+import org.apache.lucene.util.AttributeReflector;
+import org.atilika.kuromoji.Token;
+
+/**
+ * Implements {@link TypeAttribute} as well, so that the type of a token
+ * is the part of speech, which is looked up only when a filter reads it.
+ * The part of speech and its id are taken from {@link KuromojiWords} if
+ * the word is kept there.
+ */
+public class PartOfSpeechAttributeImpl extends AttributeImpl implements PartOfSpeechAttribute, TypeAttribute {
+	
+	private static final long serialVersionUID = -4187416713185046383L;
+	
+	/** id of a part of speech not looked up yet */
+	private static final int UNRESOLVED = -2;
+	
+	private Token token;
+	
+	private String partOfSpeech = DEFAULT_TYPE;
+	
+	private int partOfSpeechId = UNRESOLVED;
+	
+	@Override
+	public String getPartOfSpeech() {
+		if (partOfSpeech == null) {
+			resolve();
+		}
+		return partOfSpeech;
+	}
+	
+	@Override
+	public int getPartOfSpeechId() {
+		if (partOfSpeechId == UNRESOLVED) {
+			String partOfSpeech = getPartOfSpeech();
+			if (partOfSpeechId == UNRESOLVED) {
+				// not a word of the system dictionary
+				partOfSpeechId = KuromojiPartOfSpeech.id(partOfSpeech);
+			}
+		}
+		return partOfSpeechId;
+	}
+	
+	/** looks up the part of speech of the token */
+	private void resolve() {
+		KuromojiWords.Word word = KuromojiWords.word(token);
+		if (word != null) {
+			partOfSpeech = word.partOfSpeech();
+			partOfSpeechId = word.partOfSpeechId();
+		} else {
+			partOfSpeech = token.getPartOfSpeech();
+		}
+	}
+	
+	@Override
+	public void setPartOfSpeech(String partOfSpeech) {
+		this.token = null;
+		this.partOfSpeech = partOfSpeech;
+		this.partOfSpeechId = UNRESOLVED;
+	}
+	
+	@Override
+	public void setToken(Token token) {
+		this.token = token;
+		this.partOfSpeech = null;
+		this.partOfSpeechId = UNRESOLVED;
+	}
+	
+	@Override
+	public String type() {
+		return getPartOfSpeech();
+	}
+	
+	@Override
+	public void setType(String type) {
+		setPartOfSpeech(type);
+	}
+	
+	@Override
+	public void clear() {
+		this.token = null;
+		this.partOfSpeech = DEFAULT_TYPE;
+		this.partOfSpeechId = UNRESOLVED;
+	}
+	
+	@Override
+	public void copyTo(AttributeImpl target) {
+		if (target instanceof PartOfSpeechAttributeImpl) {
+			PartOfSpeechAttributeImpl t = (PartOfSpeechAttributeImpl) target;
+			t.token = token;
+			t.partOfSpeech = partOfSpeech;
+			t.partOfSpeechId = partOfSpeechId;
+		} else {
+			((TypeAttribute) target).setType(getPartOfSpeech());
+		}
+	}
+	
+	@Override
+	public void reflectWith(AttributeReflector reflector) {
+		reflector.reflect(TypeAttribute.class, "type", type());
+		reflector.reflect(PartOfSpeechAttribute.class, "partOfSpeech", getPartOfSpeech());
+	}
+	
+}
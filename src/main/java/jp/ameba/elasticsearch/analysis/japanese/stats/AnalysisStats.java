@@ -0,0 +1,137 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * Statistics of an analyzer of an index.
+ * <p>
+ * Counters are added once per analyzed text by {@link AnalysisStatsFilter}.
+ * Timing every call would cost more than the counting, so only one of every
+ * {@link #sample()} texts is timed.
+ *
+ * @author namura_suguru
+ */
+public class AnalysisStats implements ToXContent {
+
+	private final AnalysisStatsService service;
+
+	private final String index;
+
+	private final String name;
+
+	private final int sample;
+
+	private final StripedCounter documents = new StripedCounter();
+
+	private final StripedCounter chars = new StripedCounter();
+
+	private final StripedCounter tokens = new StripedCounter();
+
+	private final StripedCounter droppedTokens = new StripedCounter();
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	/** additional statistics of the analyzer, like its cache */
+	private final Map<String, ToXContent> sections = ConcurrentCollections.newConcurrentMap();
+
+	AnalysisStats(AnalysisStatsService service, String index, String name, int sample) {
+		this.service = service;
+		this.index = index;
+		this.name = name;
+		this.sample = sample;
+	}
+
+	public String index() {
+		return index;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Returns the interval of texts to time, 0 if none are timed
+	 */
+	public int sample() {
+		return sample;
+	}
+
+	/**
+	 * Records an analyzed text.
+	 *
+	 * @param nanos time spent in the analyzer, or -1 if it was not timed
+	 */
+	public void analyzed(int chars, int tokens, long nanos) {
+		this.documents.add(1);
+		this.chars.add(chars);
+		this.tokens.add(tokens);
+		if (nanos >= 0) {
+			latency.add(nanos);
+		}
+	}
+
+	/**
+	 * Records tokens removed by a filter
+	 */
+	public void dropped(int tokens) {
+		droppedTokens.add(tokens);
+	}
+
+	/**
+	 * Adds statistics of a part of the analyzer to the output
+	 */
+	public void section(String name, ToXContent section) {
+		sections.put(name, section);
+	}
+
+	public long documents() {
+		return documents.get();
+	}
+
+	public long chars() {
+		return chars.get();
+	}
+
+	public long tokens() {
+		return tokens.get();
+	}
+
+	public long droppedTokens() {
+		return droppedTokens.get();
+	}
+
+	public LatencyHistogram latency() {
+		return latency;
+	}
+
+	/**
+	 * Stops exposing the statistics, when the analyzer is closed
+	 */
+	public void close() {
+		service.unregister(this);
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		builder.field("documents", documents());
+		builder.field("chars", chars());
+		builder.field("tokens", tokens());
+		builder.field("dropped_tokens", droppedTokens());
+		builder.startObject("latency");
+		builder.field("sample", sample);
+		latency.toXContent(builder, params);
+		builder.endObject();
+		for (Map.Entry<String, ToXContent> section : sections.entrySet()) {
+			builder.startObject(section.getKey());
+			section.getValue().toXContent(builder, params);
+			builder.endObject();
+		}
+		return builder;
+	}
+
+}
@@ -0,0 +1,77 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.TokenFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+
+/**
+ * Last filter of an analyzer, which counts its tokens and records them in
+ * {@link AnalysisStats} when the stream ends.
+ * <p>
+ * Sampled texts are timed around each call to the analyzer, so that the
+ * time the indexer spends between tokens is not counted.
+ *
+ * @author namura_suguru
+ */
+public final class AnalysisStatsFilter extends TokenFilter {
+
+	private final AnalysisStats stats;
+
+	private final OffsetAttribute offsetAttr = addAttribute(OffsetAttribute.class);
+
+	/** texts before the next sampled one */
+	private int countdown = 0;
+
+	private boolean sampled;
+
+	private int tokens;
+
+	private long nanos;
+
+	public AnalysisStatsFilter(AnalysisStats stats, TokenStream input) {
+		super(input);
+		this.stats = stats;
+	}
+
+	@Override
+	public void reset() throws IOException {
+		super.reset();
+		tokens = 0;
+		nanos = 0;
+		sampled = stats.sample() > 0 && --countdown <= 0;
+		if (sampled) {
+			countdown = stats.sample();
+		}
+	}
+
+	@Override
+	public boolean incrementToken() throws IOException {
+		boolean next;
+		if (sampled) {
+			long start = System.nanoTime();
+			next = input.incrementToken();
+			nanos += System.nanoTime() - start;
+		} else {
+			next = input.incrementToken();
+		}
+		if (next) {
+			tokens++;
+		}
+		return next;
+	}
+
+	@Override
+	public void end() throws IOException {
+		if (sampled) {
+			long start = System.nanoTime();
+			super.end();
+			nanos += System.nanoTime() - start;
+		} else {
+			super.end();
+		}
+		stats.analyzed(offsetAttr.endOffset(), tokens, sampled ? nanos : -1);
+	}
+
+}
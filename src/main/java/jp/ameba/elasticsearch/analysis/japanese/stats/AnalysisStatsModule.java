@@ -0,0 +1,17 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import org.elasticsearch.common.inject.AbstractModule;
+
+/**
+ * Node level bindings of the analysis statistics
+ *
+ * @author namura_suguru
+ */
+public class AnalysisStatsModule extends AbstractModule {
+
+	@Override
+	protected void configure() {
+		bind(AnalysisStatsService.class).asEagerSingleton();
+	}
+
+}
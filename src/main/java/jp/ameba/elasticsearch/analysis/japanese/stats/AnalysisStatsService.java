@@ -0,0 +1,64 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.Index;
+
+/**
+ * Node level registry of the statistics of the Japanese analyzers.
+ * <p>
+ * Analyzers register their statistics with the following settings.
+ * <ul>
+ * <li>stats.enabled : collects statistics (default true)</li>
+ * <li>stats.sample : times one of every this many texts, 0 to disable timing (default 64)</li>
+ * </ul>
+ *
+ * @author namura_suguru
+ */
+public class AnalysisStatsService extends AbstractComponent {
+
+	public static final int DEFAULT_SAMPLE = 64;
+
+	private final ConcurrentMap<String, AnalysisStats> stats = ConcurrentCollections.newConcurrentMap();
+
+	@Inject
+	public AnalysisStatsService(Settings settings) {
+		super(settings);
+	}
+
+	/**
+	 * Returns the statistics of the analyzer, or null if they are disabled.
+	 * They must be closed with the analyzer.
+	 */
+	public AnalysisStats register(Index index, String name, Settings settings) {
+		if (!settings.getAsBoolean("stats.enabled", true)) {
+			return null;
+		}
+		int sample = Math.max(0, settings.getAsInt("stats.sample", DEFAULT_SAMPLE));
+		AnalysisStats analysisStats = new AnalysisStats(this, index.name(), name, sample);
+		stats.put(key(analysisStats), analysisStats);
+		return analysisStats;
+	}
+
+	void unregister(AnalysisStats analysisStats) {
+		stats.remove(key(analysisStats), analysisStats);
+	}
+
+	/**
+	 * Returns the statistics of every analyzer on the node
+	 */
+	public List<AnalysisStats> stats() {
+		return new ArrayList<AnalysisStats>(stats.values());
+	}
+
+	private static String key(AnalysisStats analysisStats) {
+		return analysisStats.index() + "/" + analysisStats.name();
+	}
+
+}
@@ -0,0 +1,87 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+/**
+ * Histogram of latencies, in buckets of powers of two microseconds.
+ * <p>
+ * Bucket 0 counts latencies under 1us, and bucket n those from 2^(n-1)us
+ * up to 2^n us. The last bucket counts everything longer.
+ *
+ * @author namura_suguru
+ */
+public class LatencyHistogram implements ToXContent {
+
+	private static final int BUCKETS = 24;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final StripedCounter count = new StripedCounter();
+
+	private final StripedCounter totalNanos = new StripedCounter();
+
+	public void add(long nanos) {
+		long micros = nanos / 1000;
+		int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+		buckets.incrementAndGet(bucket);
+		count.add(1);
+		totalNanos.add(nanos);
+	}
+
+	public long count() {
+		return count.get();
+	}
+
+	public long totalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * Returns the upper bound in microseconds of the bucket holding the
+	 * quantile, or 0 if nothing has been recorded.
+	 */
+	public long quantileMicros(double quantile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = buckets.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(total * quantile);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return 1L << i;
+			}
+		}
+		return 1L << (BUCKETS - 1);
+	}
+
+	@Override
+	public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+		long count = count();
+		builder.field("count", count);
+		builder.field("mean_micros", count == 0 ? 0 : totalNanos() / count / 1000);
+		builder.field("p50_micros", quantileMicros(0.5));
+		builder.field("p90_micros", quantileMicros(0.9));
+		builder.field("p99_micros", quantileMicros(0.99));
+		builder.startObject("buckets");
+		for (int i = 0; i < BUCKETS; i++) {
+			long value = buckets.get(i);
+			if (value > 0) {
+				builder.field(i == BUCKETS - 1 ? "inf" : "lt_" + (1L << i) + "us", value);
+			}
+		}
+		builder.endObject();
+		return builder;
+	}
+
+}
@@ -0,0 +1,98 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestChannel;
+import org.elasticsearch.rest.RestController;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.XContentRestResponse;
+import org.elasticsearch.rest.XContentThrowableRestResponse;
+import org.elasticsearch.rest.action.support.RestActions;
+import org.elasticsearch.rest.action.support.RestXContentBuilder;
+
+/**
+ * Returns the statistics of the Japanese analyzers of the node receiving
+ * the request, grouped by index and analyzer name.
+ * <pre>
+ * GET /_japanese/stats
+ * GET /{index}/_japanese/stats
+ * </pre>
+ *
+ * @author namura_suguru
+ */
+public class RestAnalysisStatsAction extends BaseRestHandler {
+
+	private final AnalysisStatsService service;
+
+	@Inject
+	public RestAnalysisStatsAction(Settings settings, Client client, RestController controller, AnalysisStatsService service) {
+		super(settings, client);
+		this.service = service;
+		controller.registerHandler(GET, "/_japanese/stats", this);
+		controller.registerHandler(GET, "/{index}/_japanese/stats", this);
+	}
+
+	@Override
+	public void handleRequest(RestRequest request, RestChannel channel) {
+		Set<String> indices = null;
+		if (request.hasParam("index")) {
+			indices = new HashSet<String>(Arrays.asList(RestActions.splitIndices(request.param("index"))));
+		}
+		List<AnalysisStats> stats = service.stats();
+		Collections.sort(stats, new Comparator<AnalysisStats>() {
+			@Override
+			public int compare(AnalysisStats o1, AnalysisStats o2) {
+				int compare = o1.index().compareTo(o2.index());
+				return compare != 0 ? compare : o1.name().compareTo(o2.name());
+			}
+		});
+		try {
+			XContentBuilder builder = RestXContentBuilder.restContentBuilder(request);
+			builder.startObject();
+			builder.startObject("indices");
+			String index = null;
+			for (AnalysisStats analysisStats : stats) {
+				if (indices != null && !indices.contains(analysisStats.index())) {
+					continue;
+				}
+				if (!analysisStats.index().equals(index)) {
+					if (index != null) {
+						builder.endObject();
+					}
+					index = analysisStats.index();
+					builder.startObject(index);
+				}
+				builder.startObject(analysisStats.name());
+				analysisStats.toXContent(builder, request);
+				builder.endObject();
+			}
+			if (index != null) {
+				builder.endObject();
+			}
+			builder.endObject();
+			builder.endObject();
+			channel.sendResponse(new XContentRestResponse(request, RestStatus.OK, builder));
+		} catch (Exception e) {
+			try {
+				channel.sendResponse(new XContentThrowableRestResponse(request, e));
+			} catch (IOException e1) {
+				logger.error("Failed to send failure response", e1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,45 @@
+package jp.ameba.elasticsearch.analysis.japanese.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter updated by many threads.
+ * <p>
+ * Each thread adds to one of several cells chosen by its id, and the cells
+ * are summed when read, so that indexing threads rarely contend on the same
+ * cache line.
+ *
+ * @author namura_suguru
+ */
+public class StripedCounter {
+
+	/** longs between two cells, so that each cell has its own cache line */
+	private static final int PADDING = 8;
+
+	private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+	public void add(long delta) {
+		int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+		cells.addAndGet(stripe * PADDING, delta);
+	}
+
+	public long get() {
+		long sum = 0;
+		for (int i = 0; i < STRIPES; i++) {
+			sum += cells.get(i * PADDING);
+		}
+		return sum;
+	}
+
+	/** power of two of at least twice the processors */
+	private static int stripes(int processors) {
+		int stripes = 1;
+		while (stripes < processors * 2) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+}
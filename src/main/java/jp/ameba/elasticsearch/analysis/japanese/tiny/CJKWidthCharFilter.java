@@ -0,0 +1,95 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.BaseCharFilter;
+import org.apache.lucene.analysis.CharStream;
+
+/**
+ * Char filter normalizing CJK width differences as {@link CJKWidthFilter}
+ * does, before the text is segmented:
+ * <ul>
+ *   <li>Folds fullwidth ASCII variants into the equivalent basic latin
+ *   <li>Folds halfwidth Katakana variants into the equivalent kana
+ * </ul>
+ * <p>
+ * Each halfwidth voiced mark combined with the previous char is recorded in
+ * the offset correction map of {@link BaseCharFilter}, so that corrected
+ * offsets point to the original text. Reads return len chars unless the
+ * input ends, and a read ending with a kana reads one more char, so that a
+ * voiced mark of the next read is combined as well.
+ *
+ * @author namura_suguru
+ */
+public final class CJKWidthCharFilter extends BaseCharFilter {
+  /** number of chars returned by the previous reads */
+  private int outputOffset = 0;
+  /** char read after the previous read, -1 if none */
+  private int pending = -1;
+
+  public CJKWidthCharFilter(CharStream in) {
+    super(in);
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (len <= 0) {
+      return 0;
+    }
+    final int limit = off + len;
+    int pos = off;
+    // short reads of the input are not the end of the text, read until len chars or -1
+    while (pos < limit) {
+      final int end;
+      if (pending >= 0) {
+        cbuf[pos] = (char) pending;
+        pending = -1;
+        end = pos + 1;
+      } else {
+        final int length = input.read(cbuf, pos, limit - pos);
+        if (length < 0) {
+          break;
+        }
+        end = pos + length;
+      }
+      for (int i = pos; i < end; i++) {
+        final char ch = cbuf[i];
+        if (ch < 0xFF01) {
+          cbuf[pos++] = ch;
+        } else if ((ch == 0xFF9E || ch == 0xFF9F) && pos > off && CJKWidthFilter.combine(cbuf, pos, pos, ch)) {
+          // Halfwidth voiced marks combined with the previous char,
+          // following chars are shifted by one more
+          addOffCorrectMap(outputOffset + pos - off, getLastCumulativeDiff() + 1);
+        } else {
+          cbuf[pos++] = normalize(ch);
+        }
+      }
+    }
+    if (pos == off) {
+      return -1;
+    }
+    final char last = cbuf[pos - 1];
+    if (pos == limit && last >= 0x30A6 && last <= 0x30FD) {
+      final int next = input.read();
+      if ((next == 0xFF9E || next == 0xFF9F) && CJKWidthFilter.combine(cbuf, pos, pos, (char) next)) {
+        addOffCorrectMap(outputOffset + pos - off, getLastCumulativeDiff() + 1);
+      } else {
+        pending = next;
+      }
+    }
+    outputOffset += pos - off;
+    return pos - off;
+  }
+
+  /** normalizes a single char */
+  private static char normalize(char ch) {
+    if (ch >= 0xFF01 && ch <= 0xFF5E) {
+      // Fullwidth ASCII variants
+      return (char) (ch - 0xFEE0);
+    } else if (ch >= 0xFF65 && ch <= 0xFF9F) {
+      // Halfwidth Katakana variants
+      return CJKWidthFilter.KANA_NORM[ch - 0xFF65];
+    }
+    return ch;
+  }
+}
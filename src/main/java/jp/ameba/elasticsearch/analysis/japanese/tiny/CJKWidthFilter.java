@@ -43,8 +43,10 @@ public final class CJKWidthFilter extends TokenFilter {
    * note: 0xFF9C and 0xFF9D are only mapped to 0x3099 and 0x309A
    * as a fallback when they cannot properly combine with a preceding 
    * character into a composed form.
+   *
+   * shared with CJKWidthCharFilter
    */
-  private static final char KANA_NORM[] = new char[] {
+  static final char KANA_NORM[] = new char[] {
     0x30fb, 0x30f2, 0x30a1, 0x30a3, 0x30a5, 0x30a7, 0x30a9, 0x30e3, 0x30e5,
     0x30e7, 0x30c3, 0x30fc, 0x30a2, 0x30a4, 0x30a6, 0x30a8, 0x30aa, 0x30ab,
     0x30ad, 0x30af, 0x30b1, 0x30b3, 0x30b5, 0x30b7, 0x30b9, 0x30bb, 0x30bd,
@@ -99,7 +101,7 @@ public final class CJKWidthFilter extends TokenFilter {
   };
   
   /** returns true if we successfully combined the voice mark */
-  private static boolean combine(char text[], int pos, int length, char ch) {
+  static boolean combine(char text[], int pos, int length, char ch) {
     final char prev = text[pos-1];
     if (prev >= 0x30A6 && prev <= 0x30FD) {
       text[pos-1] += (ch == 0xFF9F)
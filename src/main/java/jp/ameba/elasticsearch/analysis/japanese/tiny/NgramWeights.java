@@ -0,0 +1,95 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+import java.util.Arrays;
+
+/**
+ * Weights of character n-grams of the TinySegmenter model, held in an open
+ * addressing hash table of packed n-gram keys.
+ * <p>
+ * Characters (and the sentence markers) fit in 16 bits, so up to three of them
+ * are packed into a long key. A lookup hashes the key once and usually reads a
+ * single slot of the key and value arrays; n-grams not in the model weigh 0.
+ */
+final class NgramWeights {
+  /** marks an empty slot, no packed key can be negative */
+  private static final long EMPTY = -1L;
+
+  private final long[] keys;
+  private final int[] values;
+  private final int shift;
+
+  /** builds the table from packed n-gram keys and their weights */
+  NgramWeights(long[] ngrams, int[] weights) {
+    int bits = 1;
+    // keep the table at most half full
+    while ((1 << bits) < ngrams.length * 2) {
+      bits++;
+    }
+    keys = new long[1 << bits];
+    values = new int[1 << bits];
+    Arrays.fill(keys, EMPTY);
+    shift = 64 - bits;
+    for (int i = 0; i < ngrams.length; i++) {
+      put(ngrams[i], weights[i]);
+    }
+  }
+
+  /** returns the weight of the packed n-gram, 0 if it is not in the model */
+  int get(long key) {
+    final int mask = keys.length - 1;
+    int slot = slot(key);
+    long k;
+    while ((k = keys[slot]) != key) {
+      if (k == EMPTY) {
+        return 0;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return values[slot];
+  }
+
+  int get(int i0) {
+    return get((long) i0);
+  }
+
+  int get(int i0, int i1) {
+    return get((long) i0 << 16 | i1);
+  }
+
+  int get(int i0, int i1, int i2) {
+    return get((long) i0 << 32 | (long) i1 << 16 | i2);
+  }
+
+  private int slot(long key) {
+    // fibonacci hashing, the high bits are the best mixed
+    return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+  }
+
+  private void put(long key, int value) {
+    final int mask = keys.length - 1;
+    int slot = slot(key);
+    while (keys[slot] != EMPTY && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+  }
+}
@@ -20,13 +20,16 @@ package jp.ameba.elasticsearch.analysis.japanese.tiny;
 import java.io.IOException;
 import java.io.Reader;
 import java.text.BreakIterator;
-import java.text.CharacterIterator;
+import java.util.Arrays;
+
+import jp.ameba.elasticsearch.analysis.japanese.util.BreakIteratorSentenceBreaker;
+import jp.ameba.elasticsearch.analysis.japanese.util.SentenceBreaker;
 
 import org.apache.lucene.analysis.Tokenizer;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 
 /**
- * Breaks text into sentences with a {@link BreakIterator} and
+ * Breaks text into sentences with a {@link SentenceBreaker} and
  * allows subclasses to decompose these sentences into words.
  * <p>
  * This can be used by subclasses that need sentence context 
@@ -35,21 +38,34 @@ import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
  * Additionally it can be used by subclasses that want to mark
  * sentence boundaries (with a custom attribute, extra token, position
  * increment, etc) for downstream processing.
+ * <p>
+ * Text is read into a buffer until it is full or the reader returns -1,
+ * and processed up to its last newline, or its last sentence boundary if
+ * it has no newline. If it has neither, the buffer grows up to its
+ * maximum size, and shrinks back when the tokenizer is reset. Only text
+ * longer than the maximum size without a break position may have tokens
+ * cut in the middle.
  * 
  * @lucene.experimental
  */
 public abstract class SegmentingTokenizerBase extends Tokenizer {
   protected static final int BUFFERMAX = 4096;
-  protected final char buffer[] = new char[BUFFERMAX];
+  /** default maximum size the buffer grows to */
+  protected static final int MAX_BUFFERMAX = 16 * BUFFERMAX;
+  /** text being analyzed, replaced when the buffer grows or shrinks */
+  protected char buffer[];
+  /** initial and maximum size of the buffer */
+  private final int bufferSize, maxBufferSize;
   /** true length of text in the buffer */
   private int length = 0; 
   /** length in buffer that can be evaluated safely, up to a safe end point */
   private int usableLength = 0; 
   /** accumulated offset of previous buffers for this reader, for offsetAtt */
   protected int offset = 0;
+  /** true once the reader has returned -1 */
+  private boolean exhausted = false;
   
-  private final BreakIterator iterator;
-  private final CharArrayIterator wrapper = new CharArrayIterator();
+  private final SentenceBreaker breaker;
 
   private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
 
@@ -62,8 +78,33 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
    * be provided to this constructor.
    */
   public SegmentingTokenizerBase(Reader input, BreakIterator iterator) {
+    this(input, new BreakIteratorSentenceBreaker(iterator));
+  }
+
+  /**
+   * Construct a new SegmenterBase from the given Reader, using
+   * the provided SentenceBreaker for sentence segmentation.
+   * <p>
+   * SentenceBreakers hold state too, a new one should always be provided.
+   */
+  public SegmentingTokenizerBase(Reader input, SentenceBreaker breaker) {
+    this(input, breaker, BUFFERMAX, MAX_BUFFERMAX);
+  }
+
+  /**
+   * Construct a new SegmenterBase from the given Reader, using the
+   * provided SentenceBreaker for sentence segmentation, and a buffer
+   * of bufferSize chars which may grow up to maxBufferSize chars.
+   */
+  public SegmentingTokenizerBase(Reader input, SentenceBreaker breaker, int bufferSize, int maxBufferSize) {
     super(input);
-    this.iterator = iterator;
+    if (bufferSize < 1 || maxBufferSize < bufferSize) {
+      throw new IllegalArgumentException("invalid buffer sizes " + bufferSize + " and " + maxBufferSize);
+    }
+    this.breaker = breaker;
+    this.bufferSize = bufferSize;
+    this.maxBufferSize = maxBufferSize;
+    this.buffer = new char[bufferSize];
   }
 
   @Override
@@ -81,9 +122,13 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
   
   @Override
   public void reset() throws IOException {
-    wrapper.setText(buffer, 0, 0);
-    iterator.setText(wrapper);
+    if (buffer.length > bufferSize) {
+      // the previous document needed a larger buffer
+      buffer = new char[bufferSize];
+    }
+    breaker.setText(buffer, 0, 0);
     length = usableLength = offset = 0;
+    exhausted = false;
   }
 
   @Override
@@ -94,16 +139,25 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
   
   @Override
   public final void end() throws IOException {
-    final int finalOffset = correctOffset(length < 0 ? offset : offset + length);
+    final int finalOffset = correctOffset(offset + length);
     offsetAtt.setOffset(finalOffset, finalOffset);
   }  
 
-  /** Returns the last unambiguous break position in the text. */
+  /**
+   * Returns the last unambiguous break position in the text, or the last
+   * sentence boundary before its end if there is none. Boundaries before
+   * the end are those of the whole text too, the sentence breaker only
+   * looks ahead of them.
+   */
   private int findSafeEnd() {
     for (int i = length - 1; i >= 0; i--)
       if (isSafeEnd(buffer[i]))
         return i + 1;
-    return -1;
+    breaker.setText(buffer, 0, length);
+    int safeEnd = -1;
+    for (int end = breaker.next(); end != SentenceBreaker.DONE && end < length; end = breaker.next())
+      safeEnd = end;
+    return safeEnd;
   }
   
   /** For sentence tokenization, these are the unambiguous break positions. */
@@ -122,28 +176,40 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
 
   /**
    * Refill the buffer, accumulating the offset and setting usableLength to the
-   * last unambiguous break position
+   * last unambiguous break position, growing the buffer until it has one
    */
   private void refill() throws IOException {
     offset += usableLength;
     int leftover = length - usableLength;
     System.arraycopy(buffer, usableLength, buffer, 0, leftover);
-    int requested = buffer.length - leftover;
-    int returned = input.read(buffer, leftover, requested);
-    length = returned < 0 ? leftover : returned + leftover;
-    if (returned < requested) /* reader has been emptied, process the rest */
-      usableLength = length;
-    else { /* still more data to be read, find a safe-stopping place */
+    length = leftover;
+    while (true) {
+      /* readers may return fewer chars than requested before their end */
+      while (!exhausted && length < buffer.length) {
+        int returned = input.read(buffer, length, buffer.length - length);
+        if (returned < 0)
+          exhausted = true;
+        else
+          length += returned;
+      }
+      if (exhausted) { /* reader has been emptied, process the rest */
+        usableLength = length;
+        break;
+      }
+      /* still more data to be read, find a safe-stopping place */
       usableLength = findSafeEnd();
-      if (usableLength < 0)
-        usableLength = length; /*
-                                * more than IOBUFFER of text without breaks,
-                                * gonna possibly truncate tokens
-                                */
+      if (usableLength >= 0)
+        break;
+      if (buffer.length >= maxBufferSize) {
+        /* more than maxBufferSize of text without breaks, gonna possibly
+         * truncate tokens, but never split a surrogate pair */
+        usableLength = Character.isHighSurrogate(buffer[length - 1]) && length > 1 ? length - 1 : length;
+        break;
+      }
+      buffer = Arrays.copyOf(buffer, Math.min(maxBufferSize, buffer.length * 2));
     }
 
-    wrapper.setText(buffer, 0, Math.max(0, usableLength));
-    iterator.setText(wrapper);
+    breaker.setText(buffer, 0, Math.max(0, usableLength));
   }
 
   /**
@@ -155,16 +221,16 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
       return false;
     
     while (true) {
-      int start = iterator.current();
+      int start = breaker.current();
 
-      if (start == BreakIterator.DONE)
-        return false; // BreakIterator exhausted
+      if (start == SentenceBreaker.DONE)
+        return false; // SentenceBreaker exhausted
 
       // find the next set of boundaries
-      int end = iterator.next();
+      int end = breaker.next();
 
-      if (end == BreakIterator.DONE)
-        return false; // BreakIterator exhausted
+      if (end == SentenceBreaker.DONE)
+        return false; // SentenceBreaker exhausted
 
       setNextSentence(start, end);
       if (incrementWord()) {
@@ -177,107 +243,4 @@ public abstract class SegmentingTokenizerBase extends Tokenizer {
   protected abstract void setNextSentence(int sentenceStart, int sentenceEnd);
   /** Returns true if another word is available */
   protected abstract boolean incrementWord();
-  
-  /** A CharacterIterator used internally for sentence breaks */
-  static class CharArrayIterator implements CharacterIterator {
-    private char array[];
-    private int start;
-    private int index;
-    private int length;
-    private int limit;
-
-    public char [] getText() {
-      return array;
-    }
-    
-    public int getStart() {
-      return start;
-    }
-    
-    public int getLength() {
-      return length;
-    }
-    
-    /**
-     * Set a new region of text to be examined by this iterator
-     * 
-     * @param array text buffer to examine
-     * @param start offset into buffer
-     * @param length maximum length to examine
-     */
-    void setText(final char array[], int start, int length) {
-      this.array = array;
-      this.start = start;
-      this.index = start;
-      this.length = length;
-      this.limit = start + length;
-    }
-
-    public char current() {
-      return (index == limit) ? DONE : jreBugWorkaround(array[index]);
-    }
-    
-    // on modern jres, supplementary codepoints with [:Sentence_Break=Format:]
-    // trigger a bug in RulebasedBreakIterator! work around this for now
-    // by lying about all surrogates to the sentence tokenizer, instead
-    // we treat them all as SContinue so we won't break around them.
-    final char jreBugWorkaround(char ch) {
-      return ch >= 0xD800 && ch <= 0xDFFF ? 0x002C : ch;
-    }
-
-    public char first() {
-      index = start;
-      return current();
-    }
-
-    public int getBeginIndex() {
-      return 0;
-    }
-
-    public int getEndIndex() {
-      return length;
-    }
-
-    public int getIndex() {
-      return index - start;
-    }
-
-    public char last() {
-      index = (limit == start) ? limit : limit - 1;
-      return current();
-    }
-
-    public char next() {
-      if (++index >= limit) {
-        index = limit;
-        return DONE;
-      } else {
-        return current();
-      }
-    }
-
-    public char previous() {
-      if (--index < start) {
-        index = start;
-        return DONE;
-      } else {
-        return current();
-      }
-    }
-
-    public char setIndex(int position) {
-      if (position < getBeginIndex() || position > getEndIndex())
-        throw new IllegalArgumentException("Illegal Position: " + position);
-      index = start + position;
-      return current();
-    }
-
-    @Override
-    public Object clone() {
-      CharArrayIterator clone = new CharArrayIterator();
-      clone.setText(array, start, length);
-      clone.index = index;
-      return clone;
-    }
-  }
 }
@@ -1,8 +1,15 @@
 package jp.ameba.elasticsearch.analysis.japanese.tiny;
 
+import java.util.Collection;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsModule;
+import jp.ameba.elasticsearch.analysis.japanese.stats.RestAnalysisStatsAction;
+
+import org.elasticsearch.common.collect.Lists;
 import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.index.analysis.AnalysisModule;
 import org.elasticsearch.plugins.AbstractPlugin;
+import org.elasticsearch.rest.RestModule;
 
 public class TinyAnalysisJapanesePlugin extends AbstractPlugin {
 
@@ -16,12 +23,22 @@ public class TinyAnalysisJapanesePlugin extends AbstractPlugin {
 		return "analysis-japanese";
 	}
 	
+	@Override
+	public Collection<Class<? extends Module>> modules() {
+		Collection<Class<? extends Module>> modules = Lists.newArrayList();
+		modules.add(AnalysisStatsModule.class);
+		return modules;
+	}
+	
 	@Override
 	public void processModule(Module module) {
 		if (module instanceof AnalysisModule) {
 			AnalysisModule analysisModule = (AnalysisModule) module;
 			analysisModule.addProcessor(new TinyJapaneseAnalysisBinderProcessor());
 		}
+		if (module instanceof RestModule) {
+			((RestModule) module).addRestAction(RestAnalysisStatsAction.class);
+		}
 	}
 
 }
@@ -1,9 +1,14 @@
 package jp.ameba.elasticsearch.analysis.japanese.tiny;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.util.HashSet;
 import java.util.Set;
 
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStats;
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsFilter;
+
+import org.apache.lucene.analysis.CharReader;
 import org.apache.lucene.analysis.StopFilter;
 import org.apache.lucene.analysis.StopwordAnalyzerBase;
 import org.apache.lucene.analysis.TokenStream;
@@ -31,8 +36,30 @@ public class TinyJapaneseAnalyzer extends StopwordAnalyzerBase {
 	
 	private static final Version VERSION = Version.LUCENE_35;
 	
+	/** initial size of the buffer of the tokenizer, in chars */
+	public static final int DEFAULT_BUFFER_SIZE = 4096;
+	
+	/** size the buffer of the tokenizer grows to when it has no sentence end */
+	public static final int DEFAULT_MAX_BUFFER_SIZE = 65536;
+	
+	private final TinySegmenterModel model;
+	
+	private final int bufferSize;
+	
+	private final int maxBufferSize;
+	
+	private final AnalysisStats stats;
+	
 	public TinyJapaneseAnalyzer() {
+		this(TinySegmenterModel.defaultModel(), DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE, null);
+	}
+	
+	public TinyJapaneseAnalyzer(TinySegmenterModel model, int bufferSize, int maxBufferSize, AnalysisStats stats) {
 		super(VERSION, createStopWords());
+		this.model = model;
+		this.bufferSize = bufferSize;
+		this.maxBufferSize = maxBufferSize;
+		this.stats = stats;
 	}
 	
 	private static final String[] STOP_WORDS = 
@@ -58,11 +85,29 @@ public class TinyJapaneseAnalyzer extends StopwordAnalyzerBase {
 	protected TokenStreamComponents createComponents(
 			String fieldName,
 			Reader aReader) {
-		Tokenizer tokenizer = new TinyJapaneseTokenizer(aReader);
-		TokenStream stream = new CJKWidthFilter(tokenizer);
-		stream = new TinyJapaneseKatakanaStemFilter(stream);
+		// width is normalized before segmentation, so the model scores folded chars
+		Tokenizer tokenizer = new TinyJapaneseTokenizer(model, bufferSize, maxBufferSize,
+				new CJKWidthCharFilter(CharReader.get(aReader)));
+		TokenStream stream = new TinyJapaneseKatakanaStemFilter(tokenizer);
 		stream = new StopFilter(VERSION, stream, getStopwordSet());
-		return new TokenStreamComponents(tokenizer, stream);
+		if (stats != null) {
+			stream = new AnalysisStatsFilter(stats, stream);
+		}
+		return new TokenStreamComponents(tokenizer, stream) {
+			@Override
+			protected boolean reset(Reader reader) throws IOException {
+				// reused components have to be normalized as well
+				return super.reset(new CJKWidthCharFilter(CharReader.get(reader)));
+			}
+		};
+	}
+	
+	@Override
+	public void close() {
+		if (stats != null) {
+			stats.close();
+		}
+		super.close();
 	}
 
 }
@@ -17,9 +17,13 @@
 
 package jp.ameba.elasticsearch.analysis.japanese.tiny;
 
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsService;
+
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.assistedinject.Assisted;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.analysis.AbstractIndexAnalyzerProvider;
 import org.elasticsearch.index.settings.IndexSettings;
@@ -32,10 +36,18 @@ public class TinyJapaneseAnalyzerProvider extends AbstractIndexAnalyzerProvider<
 	public TinyJapaneseAnalyzerProvider(
 			Index index,
 			@IndexSettings Settings indexSettings,
+			Environment env,
+			AnalysisStatsService statsService,
 			@Assisted String name,
 			@Assisted Settings settings) {
 		super(index, indexSettings, name, settings);
-		analyzer = new TinyJapaneseAnalyzer();
+		int bufferSize = settings.getAsInt("buffer_size", TinyJapaneseAnalyzer.DEFAULT_BUFFER_SIZE);
+		int maxBufferSize = settings.getAsInt("max_buffer_size", Math.max(bufferSize, TinyJapaneseAnalyzer.DEFAULT_MAX_BUFFER_SIZE));
+		if (bufferSize < 1 || maxBufferSize < bufferSize) {
+			throw new ElasticSearchIllegalArgumentException("[buffer_size] must be positive and at most [max_buffer_size]");
+		}
+		analyzer = new TinyJapaneseAnalyzer(TinySegmenterModel.load(env, settings), bufferSize, maxBufferSize,
+				statsService.register(index, name, settings));
 	}
 
 	@Override
@@ -36,7 +36,7 @@ import org.apache.lucene.analysis.tokenattributes.KeywordAttribute;
  * simple and maintenance-free.
  * <p>
  * Note: This filter does not support half-width katakana characters, so you
- * should convert them with {@link CJKWidthFilter} first.
+ * should convert them with {@link CJKWidthFilter} or {@link CJKWidthCharFilter} first.
  * <p>
  * To prevent terms from being stemmed use an instance of
  * {@link KeywordMarkerFilter} or a custom {@link TokenFilter} that sets
@@ -18,8 +18,8 @@ package jp.ameba.elasticsearch.analysis.japanese.tiny;
  */
 
 import java.io.Reader;
-import java.text.BreakIterator;
-import java.util.Locale;
+
+import jp.ameba.elasticsearch.analysis.japanese.util.JapaneseSentenceBreaker;
 
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
@@ -42,6 +42,18 @@ import static jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseSegmente
  * </ul>
  * Neither of these change the segmentation, for example, punctuation is still 
  * taken into context when computing the algorithm, just not produced as tokens.
+ * <p>
+ * Positions of a sentence are scored in order, so the characters of the window
+ * and their categories are shifted along with it, and only the character
+ * entering the window is looked up and classified. Positions inside runs of
+ * a category the model never breaks, such as latin words with the built-in
+ * model, are skipped without being scored, see
+ * {@link TinySegmenterModel#joinsRuns(int)}.
+ * <p>
+ * Sentences are found by a {@link JapaneseSentenceBreaker}.
+ * <p>
+ * The weights come from a {@link TinySegmenterModel}, the built-in one unless
+ * another is given.
  */
 public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
   /** three context state variables, indicates if we broke at n-3,n-2,n-1 */
@@ -53,15 +65,35 @@ public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
   /** current word boundary info */
   private int start, end;
 
-  /** we use a japanese sentence break iterator */
-  private static final BreakIterator proto = BreakIterator.getSentenceInstance(Locale.JAPAN);
-  
+  /** characters and categories of the window (n-3 .. n+2) */
+  private int c1, c2, c3, c4, c5, c6;
+  private int t1, t2, t3, t4, t5, t6;
+
+  /** position of the window, -1 if it has to be filled */
+  private int windowPos = -1;
+
+  private final TinySegmenterModel model;
+
   private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
   private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
 
   /** Create a tokenizer working on the supplied reader */
   public TinyJapaneseTokenizer(Reader input) {
-    super(input, (BreakIterator) proto.clone());
+    this(TinySegmenterModel.defaultModel(), input);
+  }
+
+  /** Create a tokenizer segmenting the supplied reader with the model */
+  public TinyJapaneseTokenizer(TinySegmenterModel model, Reader input) {
+    this(model, BUFFERMAX, MAX_BUFFERMAX, input);
+  }
+
+  /**
+   * Create a tokenizer segmenting the supplied reader with the model, in a
+   * buffer of bufferSize chars which may grow up to maxBufferSize chars
+   */
+  public TinyJapaneseTokenizer(TinySegmenterModel model, int bufferSize, int maxBufferSize, Reader input) {
+    super(input, new JapaneseSentenceBreaker(), bufferSize, maxBufferSize);
+    this.model = model;
   }
 
   @Override
@@ -69,6 +101,7 @@ public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
     p1 = p2 = p3 = PU;
     this.sentenceStart = this.start = this.end = sentenceStart;
     this.sentenceEnd = sentenceEnd;
+    this.windowPos = -1;
   }
 
   @Override
@@ -78,6 +111,7 @@ public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
     
     start = end;
     for (end++; end < sentenceEnd; end++) {
+      end = skipRun(end);
       if (isBoundary(end)) {
         switch(tokenStatus(start, end)) {
           case SKIP:
@@ -121,6 +155,31 @@ public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
     }
   }
 
+  /**
+   * skips the positions from pos that the model never breaks, as their chars
+   * from n-2 to n+1 are in a run of a joined category, and returns the next
+   * position to score
+   */
+  private int skipRun(int pos) {
+    // the categories of the window at pos-1 from n-1 to n+2 are the ones of pos-2 to pos+1
+    final int type = t5;
+    if (windowPos != pos - 1 || !model.joinsRuns(type) || t3 != type || t4 != type || t6 != type
+        || pos + 1 >= sentenceEnd) {
+      return pos;
+    }
+    int last = pos + 1;
+    while (last + 1 < sentenceEnd && charType(buffer[last+1]) == type) {
+      last++;
+    }
+    // positions pos to last-1 are not breaks, shift the context as isBoundary would
+    for (int i = pos; i < last && i < pos + 3; i++) {
+      p1 = p2;
+      p2 = p3;
+      p3 = PO;
+    }
+    return last;
+  }
+
   /** returns the character (or special sentence start/end marker) at this position */
   private int charAt(int pos) {
     if (pos == sentenceStart-3)
@@ -139,44 +198,56 @@ public final class TinyJapaneseTokenizer extends SegmentingTokenizerBase {
       return buffer[pos];
   }
   
+  /** moves the window to pos, classifying only the characters entering it */
+  private void slideWindow(int pos) {
+    if (pos == windowPos + 1) {
+      c1 = c2; t1 = t2;
+      c2 = c3; t2 = t3;
+      c3 = c4; t3 = t4;
+      c4 = c5; t4 = t5;
+      c5 = c6; t5 = t6;
+    } else {
+      c1 = charAt(pos-3); t1 = charType(c1);
+      c2 = charAt(pos-2); t2 = charType(c2);
+      c3 = charAt(pos-1); t3 = charType(c3);
+      c4 = charAt(pos);   t4 = charType(c4);
+      c5 = charAt(pos+1); t5 = charType(c5);
+    }
+    c6 = charAt(pos+2);
+    t6 = charType(c6);
+    windowPos = pos;
+  }
+
   /** true if there is a boundary at pos */
   private boolean isBoundary(int pos) {
-    final int c1 = charAt(pos-3);
-    final int t1 = charType(c1);
-    final int c2 = charAt(pos-2);
-    final int t2 = charType(c2);
-    final int c3 = charAt(pos-1);
-    final int t3 = charType(c3);
-    final int c4 = charAt(pos);
-    final int t4 = charType(c4);
-    final int c5 = charAt(pos+1);
-    final int t5 = charType(c5);
-    final int c6 = charAt(pos+2);
-    final int t6 = charType(c6);
+    slideWindow(pos);
+    final int c1 = this.c1, c2 = this.c2, c3 = this.c3, c4 = this.c4, c5 = this.c5, c6 = this.c6;
+    final int t1 = this.t1, t2 = this.t2, t3 = this.t3, t4 = this.t4, t5 = this.t5, t6 = this.t6;
+    final TinySegmenterModel m = model;
     
-    final int score = BIAS
+    final int score = m.bias()
       // unigram context
-      + up1(p1) + up2(p2) + up3(p3)
+      + m.up1(p1) + m.up2(p2) + m.up3(p3)
       // bigram context
-      + bp1(p1, p2) + bp2(p2, p3)
+      + m.bp1(p1, p2) + m.bp2(p2, p3)
       // unigram char
-      + uw1(c1) + uw2(c2) + uw3(c3) + uw4(c4) + uw5(c5) + uw6(c6)
+      + m.uw1(c1) + m.uw2(c2) + m.uw3(c3) + m.uw4(c4) + m.uw5(c5) + m.uw6(c6)
       // bigram char
-      + bw1(c2, c3) + bw2(c3, c4) + bw3(c4, c5)
+      + m.bw1(c2, c3) + m.bw2(c3, c4) + m.bw3(c4, c5)
       // trigram char
-      + tw1(c1, c2, c3) + tw2(c2, c3, c4) + tw3(c3, c4, c5) + tw4(c4, c5, c6)
+      + m.tw1(c1, c2, c3) + m.tw2(c2, c3, c4) + m.tw3(c3, c4, c5) + m.tw4(c4, c5, c6)
       // unigram category
-      + uc1(t1) + uc2(t2) + uc3(t3) + uc4(t4) + uc5(t5) + uc6(t6)
+      + m.uc1(t1) + m.uc2(t2) + m.uc3(t3) + m.uc4(t4) + m.uc5(t5) + m.uc6(t6)
       // bigram category
-      + bc1(t2, t3) + bc2(t3, t4) + bc3(t4, t5)
+      + m.bc1(t2, t3) + m.bc2(t3, t4) + m.bc3(t4, t5)
       // trigram category
-      + tc1(t1, t2, t3) + tc2(t2, t3, t4) + tc3(t3, t4, t5) + tc4(t4, t5, t6)
+      + m.tc1(t1, t2, t3) + m.tc2(t2, t3, t4) + m.tc3(t3, t4, t5) + m.tc4(t4, t5, t6)
       // unigram context+category
-      + uq1(p1, t1) + uq2(p2, t2) + uq3(p3, t3)
+      + m.uq1(p1, t1) + m.uq2(p2, t2) + m.uq3(p3, t3)
       // bigram context+category
-      + bq1(p2, t2, t3) + bq2(p2, t3, t4) + bq3(p3, t2, t3) + bq4(p3, t3, t4)
+      + m.bq1(p2, t2, t3) + m.bq2(p2, t3, t4) + m.bq3(p3, t2, t3) + m.bq4(p3, t3, t4)
       // trigram context+category
-      + tq1(p2, t1, t2, t3) + tq2(p2, t2, t3, t4) + tq3(p3, t1, t2, t3) + tq4(p3, t2, t3, t4);
+      + m.tq1(p2, t1, t2, t3) + m.tq2(p2, t2, t3, t4) + m.tq3(p3, t1, t2, t3) + m.tq4(p3, t2, t3, t4);
     
     // shift contextual state variables back one position
     p1 = p2;
@@ -0,0 +1,508 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+
+/**
+ * Weights of a TinySegmenter model.
+ * <p>
+ * Weights of category and context features are held in arrays indexed by the
+ * packed feature, and weights of character n-grams in {@link NgramWeights}.
+ * <p>
+ * Models are stored in a compact binary format, big-endian:
+ * <pre>
+ * int     magic "TSGM"
+ * int     version (1)
+ * int     bias
+ * int     number of features
+ * feature:
+ *   UTF   name, e.g. "UW4"
+ *   byte  number of chars or categories of the key
+ *   int   number of entries
+ *   entry: key (one unsigned short each), int weight
+ * </pre>
+ * Keys of character features are UTF-16 code units or the sentence markers of
+ * {@link TinyJapaneseSegmenterConstants}, keys of the other features are its
+ * category and context codes. The built-in model is the resource
+ * <code>tinysegmenter.model</code> next to this class, and
+ * {@link TinySegmenterModelConverter} writes models from other formats.
+ */
+public final class TinySegmenterModel {
+  static final int MAGIC = 0x5453474D;
+  static final int VERSION = 1;
+
+  /** name and key length of every feature, character n-grams are marked */
+  static final String[] FEATURES = {
+    "BC1", "BC2", "BC3", "BP1", "BP2", "BQ1", "BQ2", "BQ3", "BQ4", "BW1", "BW2", "BW3",
+    "TC1", "TC2", "TC3", "TC4", "TQ1", "TQ2", "TQ3", "TQ4", "TW1", "TW2", "TW3", "TW4",
+    "UC1", "UC2", "UC3", "UC4", "UC5", "UC6", "UP1", "UP2", "UP3", "UQ1", "UQ2", "UQ3",
+    "UW1", "UW2", "UW3", "UW4", "UW5", "UW6"
+  };
+
+  /**
+   * window positions read by every feature, in key order: 1-6 for the chars
+   * (or categories) from n-3 to n+2, a-c for the contexts p1-p3
+   */
+  static final String[] WINDOWS = {
+    "23", "34", "45", "ab", "bc", "b23", "b34", "c23", "c34", "23", "34", "45",
+    "123", "234", "345", "456", "b123", "b234", "c123", "c234", "123", "234", "345", "456",
+    "1", "2", "3", "4", "5", "6", "a", "b", "c", "a1", "b2", "c3",
+    "1", "2", "3", "4", "5", "6"
+  };
+
+  private static final String DEFAULT_RESOURCE = "tinysegmenter.model";
+
+  private final int bias;
+  private final int[] bc1, bc2, bc3, bp1, bp2, bq1, bq2, bq3, bq4;
+  private final int[] tc1, tc2, tc3, tc4, tq1, tq2, tq3, tq4;
+  private final int[] uc1, uc2, uc3, uc4, uc5, uc6, up1, up2, up3, uq1, uq2, uq3;
+  private final NgramWeights bw1, bw2, bw3, tw1, tw2, tw3, tw4;
+  private final NgramWeights uw1, uw2, uw3, uw4, uw5, uw6;
+  private final boolean[] joinsRuns;
+
+  private TinySegmenterModel(Builder builder) {
+    bias = builder.bias;
+    bc1 = builder.categories("BC1"); bc2 = builder.categories("BC2"); bc3 = builder.categories("BC3");
+    bp1 = builder.categories("BP1"); bp2 = builder.categories("BP2");
+    bq1 = builder.categories("BQ1"); bq2 = builder.categories("BQ2");
+    bq3 = builder.categories("BQ3"); bq4 = builder.categories("BQ4");
+    tc1 = builder.categories("TC1"); tc2 = builder.categories("TC2");
+    tc3 = builder.categories("TC3"); tc4 = builder.categories("TC4");
+    tq1 = builder.categories("TQ1"); tq2 = builder.categories("TQ2");
+    tq3 = builder.categories("TQ3"); tq4 = builder.categories("TQ4");
+    uc1 = builder.categories("UC1"); uc2 = builder.categories("UC2"); uc3 = builder.categories("UC3");
+    uc4 = builder.categories("UC4"); uc5 = builder.categories("UC5"); uc6 = builder.categories("UC6");
+    up1 = builder.categories("UP1"); up2 = builder.categories("UP2"); up3 = builder.categories("UP3");
+    uq1 = builder.categories("UQ1"); uq2 = builder.categories("UQ2"); uq3 = builder.categories("UQ3");
+    bw1 = builder.ngrams("BW1"); bw2 = builder.ngrams("BW2"); bw3 = builder.ngrams("BW3");
+    tw1 = builder.ngrams("TW1"); tw2 = builder.ngrams("TW2");
+    tw3 = builder.ngrams("TW3"); tw4 = builder.ngrams("TW4");
+    uw1 = builder.ngrams("UW1"); uw2 = builder.ngrams("UW2"); uw3 = builder.ngrams("UW3");
+    uw4 = builder.ngrams("UW4"); uw5 = builder.ngrams("UW5"); uw6 = builder.ngrams("UW6");
+    joinsRuns = new boolean[TinyJapaneseSegmenterConstants.N + 1];
+    for (int type = 0; type < joinsRuns.length; type++) {
+      joinsRuns[type] = maxScoreInRun(builder, type) <= 0;
+    }
+  }
+
+  /**
+   * Returns an upper bound of the score of the positions n whose chars from
+   * n-2 to n+1 are all of the category, whatever the contexts and the other
+   * chars are. Character n-grams weigh at most their largest weight over
+   * chars of the category, category and context features are summed for
+   * every context and category of n-3 and n+2.
+   */
+  private static long maxScoreInRun(Builder builder, int type) {
+    long bound = builder.bias;
+    int[][] categories = new int[FEATURES.length][];
+    for (int f = 0; f < FEATURES.length; f++) {
+      if (isCharacterFeature(FEATURES[f])) {
+        int max = 0;
+        for (int[] entry : builder.entries(FEATURES[f])) {
+          if (inRun(WINDOWS[f], entry, type)) {
+            max = Math.max(max, entry[entry.length - 1]);
+          }
+        }
+        bound += max;
+      } else {
+        categories[f] = builder.categories(FEATURES[f]);
+      }
+    }
+    final int N = TinyJapaneseSegmenterConstants.N, PU = TinyJapaneseSegmenterConstants.PU,
+        PB = TinyJapaneseSegmenterConstants.PB;
+    // categories of n-3 to n+2, then contexts p1 to p3
+    int[] window = { 0, type, type, type, type, 0, 0, 0, 0 };
+    long max = Long.MIN_VALUE;
+    for (window[0] = 0; window[0] <= N; window[0]++) {
+      for (window[5] = 0; window[5] <= N; window[5]++) {
+        for (window[6] = PU; window[6] <= PB; window[6]++) {
+          for (window[7] = PU; window[7] <= PB; window[7]++) {
+            for (window[8] = PU; window[8] <= PB; window[8]++) {
+              long score = 0;
+              for (int f = 0; f < FEATURES.length; f++) {
+                if (categories[f] != null) {
+                  score += categories[f][index(WINDOWS[f], window)];
+                }
+              }
+              max = Math.max(max, score);
+            }
+          }
+        }
+      }
+    }
+    return bound + max;
+  }
+
+  /** true if the chars of the entry from n-2 to n+1 are of the category */
+  private static boolean inRun(String window, int[] entry, int type) {
+    for (int i = 0; i < window.length(); i++) {
+      char position = window.charAt(i);
+      if (position >= '2' && position <= '5' && TinyJapaneseSegmenterConstants.charType(entry[i]) != type) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** packs the categories and contexts of the window read by a feature */
+  private static int index(String window, int[] values) {
+    int index = 0;
+    for (int i = 0; i < window.length(); i++) {
+      char position = window.charAt(i);
+      index = index << 3 | values[position >= 'a' ? 6 + position - 'a' : position - '1'];
+    }
+    return index;
+  }
+
+  /** returns the built-in model */
+  public static TinySegmenterModel defaultModel() {
+    return DefaultHolder.MODEL;
+  }
+
+  private static class DefaultHolder {
+    static final TinySegmenterModel MODEL;
+    static {
+      InputStream in = TinySegmenterModel.class.getResourceAsStream(DEFAULT_RESOURCE);
+      try {
+        if (in == null) {
+          throw new IOException("missing resource " + DEFAULT_RESOURCE);
+        }
+        // the stream is closed once it is copied
+        MODEL = read(ByteBuffer.wrap(Streams.copyToByteArray(in)));
+      } catch (IOException e) {
+        throw new IllegalStateException("failed to load the built-in TinySegmenter model", e);
+      }
+    }
+  }
+
+  /**
+   * returns the model of <code>model_path</code>, relative to the config
+   * directory, or the built-in model if it is not set
+   */
+  public static TinySegmenterModel load(Environment env, Settings settings) {
+    String path = settings.get("model_path");
+    if (path == null) {
+      return defaultModel();
+    }
+    File file = new File(path);
+    if (!file.isAbsolute()) {
+      file = new File(env.configFile(), path);
+    }
+    try {
+      return load(file);
+    } catch (IOException e) {
+      throw new ElasticSearchIllegalArgumentException("failed to load TinySegmenter model [" + path + "]", e);
+    }
+  }
+
+  /** loads a model file, memory-mapping it while it is decoded */
+  public static TinySegmenterModel load(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    } finally {
+      raf.close();
+    }
+  }
+
+  /** decodes a model in the binary format */
+  public static TinySegmenterModel read(ByteBuffer buffer) throws IOException {
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("not a TinySegmenter model");
+      }
+      int version = buffer.getInt();
+      if (version != VERSION) {
+        throw new IOException("unsupported TinySegmenter model version " + version);
+      }
+      Builder builder = new Builder();
+      builder.bias(buffer.getInt());
+      int features = buffer.getInt();
+      for (int i = 0; i < features; i++) {
+        String name = readUTF(buffer);
+        int length = buffer.get();
+        int entries = buffer.getInt();
+        int[] key = new int[length];
+        for (int j = 0; j < entries; j++) {
+          for (int k = 0; k < length; k++) {
+            key[k] = buffer.getChar();
+          }
+          builder.add(name, key, buffer.getInt());
+        }
+      }
+      return builder.build();
+    } catch (BufferUnderflowException e) {
+      throw new IOException("truncated TinySegmenter model");
+    } catch (IllegalArgumentException e) {
+      throw new IOException("invalid TinySegmenter model: " + e.getMessage());
+    }
+  }
+
+  private static String readUTF(ByteBuffer buffer) throws IOException {
+    // feature names are ascii
+    char[] chars = new char[buffer.getChar()];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = (char) buffer.get();
+    }
+    return new String(chars);
+  }
+
+  /** bias: if the accumulated score is greater than -bias its a break */
+  public int bias() { return bias; }
+
+  /**
+   * true if the model never breaks a position whose chars from n-2 to n+1
+   * are all of the category, so that it does not have to be scored
+   */
+  public boolean joinsRuns(int type) { return joinsRuns[type]; }
+
+  // for all cost functions below, n is the position of the potential break
+  
+  /** bigram category cost for (n-2, n-1) */
+  public int bc1(int i0, int i1) { return bc1[i0 <<3| i1]; }
+  /** bigram category cost for (n-1, n) */
+  public int bc2(int i0, int i1) { return bc2[i0 <<3| i1]; }
+  /** bigram category cost for (n, n+1) */
+  public int bc3(int i0, int i1) { return bc3[i0 <<3| i1]; }
+  /** bigram context cost for (n-3, n-2) */
+  public int bp1(int i0, int i1) { return bp1[i0 <<3| i1]; }
+  /** bigram context cost for (n-2, n-1) */
+  public int bp2(int i0, int i1) { return bp2[i0 <<3| i1]; }
+  /** bigram category (n-2, n-1) with context (n-2) cost */
+  public int bq1(int i0, int i1, int i2) { return bq1[i0 <<6| i1 <<3| i2]; }
+  /** bigram category (n-1, n) with context (n-2) cost */
+  public int bq2(int i0, int i1, int i2) { return bq2[i0 <<6| i1 <<3| i2]; }
+  /** bigram category (n-2, n-1) with context (n-1) cost */
+  public int bq3(int i0, int i1, int i2) { return bq3[i0 <<6| i1 <<3| i2]; }
+  /** bigram category (n-1, n) with context (n-1) cost */
+  public int bq4(int i0, int i1, int i2) { return bq4[i0 <<6| i1 <<3| i2]; }
+  /** bigram character cost for (n-2, n-1) */
+  public int bw1(int i0, int i1) { return bw1.get(i0, i1); }
+  /** bigram character cost for (n-1, n) */
+  public int bw2(int i0, int i1) { return bw2.get(i0, i1); }
+  /** bigram character cost for (n, n+1) */
+  public int bw3(int i0, int i1) { return bw3.get(i0, i1); }
+  /** trigram category cost for (n-3, n-2, n-1) */
+  public int tc1(int i0, int i1, int i2) { return tc1[i0 <<6| i1 <<3| i2]; }
+  /** trigram category cost for (n-2, n-1, n) */
+  public int tc2(int i0, int i1, int i2) { return tc2[i0 <<6| i1 <<3| i2]; }
+  /** trigram category cost for (n-1, n, n+1) */
+  public int tc3(int i0, int i1, int i2) { return tc3[i0 <<6| i1 <<3| i2]; }
+  /** trigram category cost for (n, n+1, n+2) */
+  public int tc4(int i0, int i1, int i2) { return tc4[i0 <<6| i1 <<3| i2]; }
+  /** trigram category (n-3, n-2, n-1) with context (n-2) cost */
+  public int tq1(int i0, int i1, int i2, int i3) { return tq1[i0 <<9| i1 <<6| i2 <<3| i3]; }
+  /** trigram category (n-2, n-1, n) with context (n-2) cost */
+  public int tq2(int i0, int i1, int i2, int i3) { return tq2[i0 <<9| i1 <<6| i2 <<3| i3]; }
+  /** trigram category (n-3, n-2, n-1) with context (n-1) cost */
+  public int tq3(int i0, int i1, int i2, int i3) { return tq3[i0 <<9| i1 <<6| i2 <<3| i3]; }
+  /** trigram category (n-2, n-1, n) with context (n-1) cost */
+  public int tq4(int i0, int i1, int i2, int i3) { return tq4[i0 <<9| i1 <<6| i2 <<3| i3]; }
+  /** trigram character cost for (n-3, n-2, n-1) */
+  public int tw1(int i0, int i1, int i2) { return tw1.get(i0, i1, i2); }
+  /** trigram character cost for (n-2, n-1, n) */
+  public int tw2(int i0, int i1, int i2) { return tw2.get(i0, i1, i2); }
+  /** trigram character cost for (n-1, n, n+1) */
+  public int tw3(int i0, int i1, int i2) { return tw3.get(i0, i1, i2); }
+  /** trigram character cost for (n, n+1, n+2) */
+  public int tw4(int i0, int i1, int i2) { return tw4.get(i0, i1, i2); }
+  /** unigram category cost for n-3 */
+  public int uc1(int i0) { return uc1[i0]; }
+  /** unigram category cost for n-2 */
+  public int uc2(int i0) { return uc2[i0]; }
+  /** unigram category cost for n-1 */
+  public int uc3(int i0) { return uc3[i0]; }
+  /** unigram category cost for n */
+  public int uc4(int i0) { return uc4[i0]; }
+  /** unigram category cost for n+1 */
+  public int uc5(int i0) { return uc5[i0]; }
+  /** unigram category cost for n+2 */
+  public int uc6(int i0) { return uc6[i0]; }
+  /** unigram context cost for n-3 */
+  public int up1(int i0) { return up1[i0]; }
+  /** unigram context cost for n-2 */
+  public int up2(int i0) { return up2[i0]; }
+  /** unigram context cost for n-1 */
+  public int up3(int i0) { return up3[i0]; }
+  /** unigram category (n-3) with context (n-3) cost */
+  public int uq1(int i0, int i1) { return uq1[i0 <<3| i1]; }
+  /** unigram category (n-2) with context (n-2) cost */
+  public int uq2(int i0, int i1) { return uq2[i0 <<3| i1]; }
+  /** unigram category (n-1) with context (n-1) cost */
+  public int uq3(int i0, int i1) { return uq3[i0 <<3| i1]; }
+  /** unigram character cost for n-3 */
+  public int uw1(int i0) { return uw1.get(i0); }
+  /** unigram character cost for n-2 */
+  public int uw2(int i0) { return uw2.get(i0); }
+  /** unigram character cost for n-1 */
+  public int uw3(int i0) { return uw3.get(i0); }
+  /** unigram character cost for n */
+  public int uw4(int i0) { return uw4.get(i0); }
+  /** unigram character cost for n+1 */
+  public int uw5(int i0) { return uw5.get(i0); }
+  /** unigram character cost for n+2 */
+  public int uw6(int i0) { return uw6.get(i0); }
+
+  /** returns the length of the keys of the feature, or -1 if it is unknown */
+  static int keyLength(String feature) {
+    for (String name : FEATURES) {
+      if (name.equals(feature)) {
+        char kind = feature.charAt(0);
+        return kind == 'U' ? 1 : kind == 'B' ? 2 : 3;
+      }
+    }
+    return -1;
+  }
+
+  /** true if the keys of the feature are characters */
+  static boolean isCharacterFeature(String feature) {
+    return feature.charAt(1) == 'W';
+  }
+
+  /** true if the first code of the keys of the feature is a context */
+  static boolean hasContext(String feature) {
+    return feature.charAt(1) == 'P' || feature.charAt(1) == 'Q';
+  }
+
+  /**
+   * Collects the weights of a model, to build it or to write it.
+   */
+  public static final class Builder {
+    private int bias;
+    private final Map<String, List<int[]>> features = new LinkedHashMap<String, List<int[]>>();
+
+    public Builder bias(int bias) {
+      this.bias = bias;
+      return this;
+    }
+
+    /**
+     * Adds the weight of a feature, the key holds its characters or its
+     * category and context codes.
+     */
+    public Builder add(String feature, int[] key, int weight) {
+      int length = keyLength(feature);
+      if (length < 0) {
+        throw new IllegalArgumentException("unknown feature " + feature);
+      }
+      // context features have one more code than their n-gram size
+      if (feature.charAt(1) == 'Q') {
+        length++;
+      }
+      if (key.length != length) {
+        throw new IllegalArgumentException("feature " + feature + " needs keys of " + length + ", got " + key.length);
+      }
+      for (int code : key) {
+        if (code < 0 || code > 0xFFFF || (!isCharacterFeature(feature) && code > TinyJapaneseSegmenterConstants.N)) {
+          throw new IllegalArgumentException("invalid key for feature " + feature);
+        }
+      }
+      List<int[]> entries = features.get(feature);
+      if (entries == null) {
+        entries = new ArrayList<int[]>();
+        features.put(feature, entries);
+      }
+      int[] entry = new int[key.length + 1];
+      System.arraycopy(key, 0, entry, 0, key.length);
+      entry[key.length] = weight;
+      entries.add(entry);
+      return this;
+    }
+
+    private List<int[]> entries(String feature) {
+      List<int[]> entries = features.get(feature);
+      return entries == null ? new ArrayList<int[]>() : entries;
+    }
+
+    int[] categories(String feature) {
+      List<int[]> entries = entries(feature);
+      int length = feature.charAt(1) == 'Q' ? keyLength(feature) + 1 : keyLength(feature);
+      int[] weights = new int[1 << (3 * length)];
+      for (int[] entry : entries) {
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+          index = index << 3 | entry[i];
+        }
+        weights[index] = entry[length];
+      }
+      return weights;
+    }
+
+    NgramWeights ngrams(String feature) {
+      List<int[]> entries = entries(feature);
+      long[] keys = new long[entries.size()];
+      int[] values = new int[entries.size()];
+      for (int i = 0; i < keys.length; i++) {
+        int[] entry = entries.get(i);
+        long key = 0;
+        for (int j = 0; j < entry.length - 1; j++) {
+          key = key << 16 | entry[j];
+        }
+        keys[i] = key;
+        values[i] = entry[entry.length - 1];
+      }
+      return new NgramWeights(keys, values);
+    }
+
+    public TinySegmenterModel build() {
+      return new TinySegmenterModel(this);
+    }
+
+    /** writes the model in the binary format */
+    public void writeTo(OutputStream stream) throws IOException {
+      DataOutputStream out = new DataOutputStream(stream);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(bias);
+      out.writeInt(features.size());
+      for (Map.Entry<String, List<int[]>> feature : features.entrySet()) {
+        List<int[]> entries = feature.getValue();
+        int length = entries.isEmpty() ? 0 : entries.get(0).length - 1;
+        out.writeUTF(feature.getKey());
+        out.writeByte(length);
+        out.writeInt(entries.size());
+        for (int[] entry : entries) {
+          for (int i = 0; i < length; i++) {
+            out.writeChar(entry[i]);
+          }
+          out.writeInt(entry[length]);
+        }
+      }
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,264 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.elasticsearch.common.base.Charsets;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import static jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseSegmenterConstants.*;
+
+/**
+ * Converts TinySegmenter models to the binary format of
+ * {@link TinySegmenterModel}.
+ * <p>
+ * Reads the weights of <code>tinysegmenter.js</code>, a JSON object of the
+ * same features (<code>{"BIAS__": -332, "UW4__": {"の": 1234}, ...}</code>,
+ * the <code>__</code> suffix is optional), or the text format of the
+ * training tools, one <code>FEATURE:key weight</code> line per weight and a
+ * <code>BIAS weight</code> line. Keys use the letters of the original model
+ * for categories (<code>MHIKANO</code>) and contexts (<code>UOB</code>), and
+ * <code>B1</code>..<code>E3</code> for the sentence markers. Weights are
+ * multiplied by the scale and rounded, so models with real weights convert
+ * as well.
+ * <pre>
+ * java -cp ... jp.ameba.elasticsearch.analysis.japanese.tiny.TinySegmenterModelConverter [-scale n] input output
+ * </pre>
+ */
+public final class TinySegmenterModelConverter {
+  private static final Pattern JS_ASSIGNMENT = Pattern.compile("this\\.(\\w+)\\s*=\\s*(\\{[^}]*\\}|-?[0-9.]+)\\s*;");
+  private static final Pattern TEXT_LINE = Pattern.compile("(\\w+)(?::(\\S+))?\\s+(-?[0-9.eE+-]+)");
+
+  private static final String[] MARKERS = { "B1", "B2", "B3", "E1", "E2", "E3" };
+  private static final int[] MARKER_CODES = { B1, B2, B3, E1, E2, E3 };
+
+  private final TinySegmenterModel.Builder builder = new TinySegmenterModel.Builder();
+  private final double scale;
+
+  public TinySegmenterModelConverter(double scale) {
+    this.scale = scale;
+  }
+
+  public static void main(String[] args) throws IOException {
+    double scale = 1;
+    int arg = 0;
+    if (args.length == 4 && args[0].equals("-scale")) {
+      scale = Double.parseDouble(args[1]);
+      arg = 2;
+    }
+    if (args.length - arg != 2) {
+      System.err.println("usage: TinySegmenterModelConverter [-scale n] input output");
+      System.exit(1);
+    }
+    TinySegmenterModelConverter converter = new TinySegmenterModelConverter(scale);
+    converter.convert(new String(Streams.copyToByteArray(new File(args[arg])), Charsets.UTF_8));
+    OutputStream out = new BufferedOutputStream(new FileOutputStream(args[arg + 1]));
+    try {
+      converter.builder().writeTo(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /** returns the builder holding the weights converted so far */
+  public TinySegmenterModel.Builder builder() {
+    return builder;
+  }
+
+  /** converts a model in any of the supported formats */
+  public void convert(String model) throws IOException {
+    String trimmed = model.trim();
+    if (trimmed.startsWith("{")) {
+      convertJson(trimmed);
+    } else if (JS_ASSIGNMENT.matcher(model).find()) {
+      convertJavaScript(model);
+    } else {
+      convertText(model);
+    }
+  }
+
+  /** converts the weights of tinysegmenter.js */
+  public void convertJavaScript(String script) throws IOException {
+    Matcher m = JS_ASSIGNMENT.matcher(script);
+    while (m.find()) {
+      String name = featureName(m.group(1));
+      if (name.equals("BIAS")) {
+        builder.bias(weight(Double.parseDouble(m.group(2))));
+      } else if (TinySegmenterModel.keyLength(name) > 0) {
+        addAll(name, parseJson(m.group(2)));
+      }
+    }
+  }
+
+  /** converts a JSON object of the features */
+  public void convertJson(String json) throws IOException {
+    for (Map.Entry<String, Object> feature : parseJson(json).entrySet()) {
+      String name = featureName(feature.getKey());
+      if (name.equals("BIAS")) {
+        builder.bias(weight(number(name, feature.getValue())));
+      } else if (feature.getValue() instanceof Map) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> weights = (Map<String, Object>) feature.getValue();
+        addAll(name, weights);
+      } else {
+        throw new IOException("feature " + name + " is not an object");
+      }
+    }
+  }
+
+  /** converts the text format, one weight per line */
+  public void convertText(String text) throws IOException {
+    BufferedReader reader = new BufferedReader(new StringReader(text));
+    String line;
+    int number = 0;
+    while ((line = reader.readLine()) != null) {
+      number++;
+      line = line.trim();
+      if (line.length() == 0 || line.startsWith("#")) {
+        continue;
+      }
+      Matcher m = TEXT_LINE.matcher(line);
+      if (!m.matches()) {
+        throw new IOException("invalid line " + number + ": " + line);
+      }
+      String name = featureName(m.group(1));
+      double weight = Double.parseDouble(m.group(3));
+      if (name.equals("BIAS") && m.group(2) == null) {
+        builder.bias(weight(weight));
+      } else if (m.group(2) != null) {
+        add(name, m.group(2), weight);
+      } else {
+        throw new IOException("missing key on line " + number + ": " + line);
+      }
+    }
+  }
+
+  private Map<String, Object> parseJson(String json) throws IOException {
+    byte[] bytes = json.getBytes(Charsets.UTF_8);
+    return XContentHelper.convertToMap(bytes, 0, bytes.length).v2();
+  }
+
+  private void addAll(String name, Map<String, Object> weights) throws IOException {
+    for (Map.Entry<String, Object> weight : weights.entrySet()) {
+      add(name, weight.getKey(), number(name, weight.getValue()));
+    }
+  }
+
+  private void add(String name, String key, double weight) throws IOException {
+    int length = TinySegmenterModel.keyLength(name);
+    if (length < 0) {
+      throw new IOException("unknown feature " + name);
+    }
+    int[] codes = TinySegmenterModel.isCharacterFeature(name) ? characters(key, length) : categories(name, key);
+    if (codes == null) {
+      throw new IOException("invalid key " + key + " of feature " + name);
+    }
+    builder.add(name, codes, weight(weight));
+  }
+
+  /** decodes the characters of a key, some of them may be sentence markers */
+  private static int[] characters(String key, int length) {
+    int[] codes = new int[length];
+    return characters(key, 0, codes, 0) ? codes : null;
+  }
+
+  private static boolean characters(String key, int offset, int[] codes, int count) {
+    if (count == codes.length) {
+      return offset == key.length();
+    }
+    if (offset == key.length()) {
+      return false;
+    }
+    // a key holding exactly the characters needed has no markers
+    if (key.length() - offset > codes.length - count) {
+      for (int i = 0; i < MARKERS.length; i++) {
+        if (key.startsWith(MARKERS[i], offset)) {
+          codes[count] = MARKER_CODES[i];
+          if (characters(key, offset + 2, codes, count + 1)) {
+            return true;
+          }
+        }
+      }
+    }
+    codes[count] = key.charAt(offset);
+    return characters(key, offset + 1, codes, count + 1);
+  }
+
+  /** decodes the context and category letters of a key */
+  private static int[] categories(String name, String key) {
+    int[] codes = new int[key.length()];
+    for (int i = 0; i < codes.length; i++) {
+      boolean context = TinySegmenterModel.hasContext(name) && (i == 0 || name.charAt(1) == 'P');
+      codes[i] = context ? context(key.charAt(i)) : category(key.charAt(i));
+      if (codes[i] < 0) {
+        return null;
+      }
+    }
+    return codes;
+  }
+
+  private static int context(char ch) {
+    switch (ch) {
+      case 'U': return PU;
+      case 'O': return PO;
+      case 'B': return PB;
+      default: return -1;
+    }
+  }
+
+  private static int category(char ch) {
+    switch (ch) {
+      case 'O': return O;
+      case 'M': return M;
+      case 'H': return H;
+      case 'I': return I;
+      case 'K': return K;
+      case 'A': return A;
+      case 'N': return N;
+      default: return -1;
+    }
+  }
+
+  private static String featureName(String name) {
+    return name.endsWith("__") ? name.substring(0, name.length() - 2) : name;
+  }
+
+  private static double number(String name, Object value) throws IOException {
+    if (!(value instanceof Number)) {
+      throw new IOException("weight of feature " + name + " is not a number: " + value);
+    }
+    return ((Number) value).doubleValue();
+  }
+
+  private int weight(double weight) {
+    return (int) Math.round(weight * scale);
+  }
+}
@@ -0,0 +1,183 @@
+package jp.ameba.elasticsearch.analysis.japanese.util;
+
+/**
+ * Table driven {@link SentenceBreaker} for Japanese text.
+ * <p>
+ * Sentences end with a newline, or with a run of 。！？ outside of
+ * brackets and quotes such as 「」 and （）. The closing brackets and
+ * spaces following the run belong to the sentence. A bracket left open for
+ * more than {@link #MAX_BRACKET_LENGTH} chars is taken as unmatched, and no
+ * longer keeps the next terminator from ending the sentence.
+ * <p>
+ * {@link #clauses(int)} breaks at the clause ends of
+ * {@link #isClauseEnd(char)} instead, joining clauses shorter than a
+ * minimum length with the following ones.
+ *
+ * @author namura_suguru
+ */
+public final class JapaneseSentenceBreaker extends SentenceBreaker {
+
+	/** chars after which an opening bracket without its closing one is ignored */
+	public static final int MAX_BRACKET_LENGTH = 256;
+
+	private static final byte OTHER = 0;
+
+	private static final byte NEWLINE = 1;
+
+	private static final byte TERMINATOR = 2;
+
+	private static final byte OPEN = 3;
+
+	private static final byte CLOSE = 4;
+
+	private static final byte SPACE = 5;
+
+	/** page of chars without a class, shared by the tables */
+	private static final byte[] EMPTY = new byte[256];
+
+	/** classes of the chars, by their high byte then their low byte */
+	private static final byte[][] SENTENCE_CLASSES = newTable();
+
+	private static final byte[][] CLAUSE_CLASSES = newTable();
+
+	static {
+		set(SENTENCE_CLASSES, NEWLINE, '\n', '\r', 0x000B, 0x000C, 0x0085, 0x2028, 0x2029);
+		set(SENTENCE_CLASSES, TERMINATOR, '!', '?', 0x3002, 0xFF01, 0xFF1F, 0xFF61);
+		set(SENTENCE_CLASSES, OPEN, '(', '[', '{', 0x2018, 0x201C, 0x3008, 0x300A, 0x300C, 0x300E, 0x3010,
+				0x3014, 0x3016, 0x3018, 0x301A, 0x301D, 0xFF08, 0xFF3B, 0xFF5B, 0xFF62);
+		set(SENTENCE_CLASSES, CLOSE, ')', ']', '}', 0x2019, 0x201D, 0x3009, 0x300B, 0x300D, 0x300F, 0x3011,
+				0x3015, 0x3017, 0x3019, 0x301B, 0x301F, 0xFF09, 0xFF3D, 0xFF5D, 0xFF63);
+		set(SENTENCE_CLASSES, SPACE, ' ', '\t', 0x3000);
+		// every clause end is a terminator, the analyzers replace most punctuation with spaces
+		set(CLAUSE_CLASSES, TERMINATOR, '\t', '\n', '\r', ' ', 0x0085, 0x2028, 0x2029, 0x3000, 0x3001, 0x3002,
+				0xFF01, 0xFF1F);
+	}
+
+	private static byte[][] newTable() {
+		byte[][] table = new byte[256][];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = EMPTY;
+		}
+		return table;
+	}
+
+	private static void set(byte[][] table, byte type, int... chars) {
+		for (int ch : chars) {
+			int page = ch >>> 8;
+			if (table[page] == EMPTY) {
+				table[page] = new byte[256];
+			}
+			table[page][ch & 0xFF] = type;
+		}
+	}
+
+	private static byte type(byte[][] table, char ch) {
+		return table[ch >>> 8][ch & 0xFF];
+	}
+
+	/**
+	 * Returns true if ch ends a clause, such as punctuation, spaces and
+	 * newlines
+	 */
+	public static boolean isClauseEnd(char ch) {
+		return type(CLAUSE_CLASSES, ch) == TERMINATOR;
+	}
+
+	/**
+	 * Returns a breaker of clauses at least minLength long, unless they end
+	 * the text
+	 */
+	public static JapaneseSentenceBreaker clauses(int minLength) {
+		return new JapaneseSentenceBreaker(CLAUSE_CLASSES, minLength, false);
+	}
+
+	private final byte[][] classes;
+
+	private final int minLength;
+
+	/** true if the spaces and closing brackets following a sentence belong to it */
+	private final boolean trailing;
+
+	private char[] text;
+
+	private int start, length;
+
+	private int current;
+
+	/**
+	 * Creates a breaker of sentences
+	 */
+	public JapaneseSentenceBreaker() {
+		this(SENTENCE_CLASSES, 0, true);
+	}
+
+	private JapaneseSentenceBreaker(byte[][] classes, int minLength, boolean trailing) {
+		this.classes = classes;
+		this.minLength = minLength;
+		this.trailing = trailing;
+	}
+
+	@Override
+	public void setText(char[] text, int start, int length) {
+		this.text = text;
+		this.start = start;
+		this.length = length;
+		this.current = 0;
+	}
+
+	@Override
+	public int current() {
+		return current;
+	}
+
+	@Override
+	public int next() {
+		if (current >= length) {
+			return DONE;
+		}
+		final byte[][] classes = this.classes;
+		final char[] text = this.text;
+		final int offset = start, from = current;
+		int depth = 0, opened = 0;
+		int i = from;
+		while (i < length) {
+			final char ch = text[offset + i++];
+			switch (type(classes, ch)) {
+			case NEWLINE:
+				if (ch == '\r' && i < length && text[offset + i] == '\n') {
+					i++;
+				}
+				return current = i;
+			case OPEN:
+				if (depth++ == 0) {
+					opened = i;
+				}
+				break;
+			case CLOSE:
+				if (depth > 0) {
+					depth--;
+				}
+				break;
+			case TERMINATOR:
+				if ((depth == 0 || i - opened > MAX_BRACKET_LENGTH) && i - from >= minLength) {
+					return current = trailing ? skipTrailing(i) : i;
+				}
+				break;
+			}
+		}
+		return current = length;
+	}
+
+	/** Skips the terminators, closing brackets and spaces ending a sentence */
+	private int skipTrailing(int i) {
+		while (i < length) {
+			byte type = type(classes, text[start + i]);
+			if (type != TERMINATOR && type != CLOSE && type != SPACE) {
+				break;
+			}
+			i++;
+		}
+		return i;
+	}
+
+}
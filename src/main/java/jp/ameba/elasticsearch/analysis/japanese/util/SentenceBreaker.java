@@ -0,0 +1,35 @@
+package jp.ameba.elasticsearch.analysis.japanese.util;
+
+/**
+ * Finds the sentence boundaries of a region of a char buffer.
+ * <p>
+ * Boundaries are relative to the start of the region, like those of a
+ * {@link java.text.BreakIterator}: the first one is 0, the last one is the
+ * length of the region. Breakers hold the state of the text they iterate,
+ * so each tokenizer needs its own.
+ *
+ * @author namura_suguru
+ */
+public abstract class SentenceBreaker {
+
+	/** returned by {@link #next()} when the last boundary has been passed */
+	public static final int DONE = -1;
+
+	/**
+	 * Sets the region of the buffer to break, and moves to its first
+	 * boundary
+	 */
+	public abstract void setText(char[] text, int start, int length);
+
+	/**
+	 * Returns the current boundary
+	 */
+	public abstract int current();
+
+	/**
+	 * Moves to the next boundary and returns it, or returns {@link #DONE}
+	 * if the current boundary is the end of the region
+	 */
+	public abstract int next();
+
+}
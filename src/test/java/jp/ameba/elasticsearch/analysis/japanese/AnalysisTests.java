@@ -0,0 +1,103 @@
+package jp.ameba.elasticsearch.analysis.japanese;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jp.ameba.elasticsearch.analysis.japanese.kuromoji.attr.BaseFormAttribute;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.TypeAttribute;
+
+/**
+ * Helpers to compare the output of token streams in tests
+ *
+ * @author namura_suguru
+ */
+public class AnalysisTests {
+
+	/** chars of random texts, with every script, width variants and breaks */
+	private static final String CHARS = "あいうえおかきくけこがぎアイウエオカキクケコガギｱｲｳｰﾞﾟ漢字東京一二三百"
+			+ "ABCabcxyzＡＢＣ0123０１２。、！？「」（）() \n\t.,!?-ー々〆𠮷";
+
+	/**
+	 * Analyzes the text with the reusable token stream of the analyzer and
+	 * returns its tokens, see {@link #tokens(TokenStream)}.
+	 */
+	public static List<String> tokens(Analyzer analyzer, String text) throws IOException {
+		return tokens(analyzer, new StringReader(text));
+	}
+
+	public static List<String> tokens(Analyzer analyzer, Reader reader) throws IOException {
+		return tokens(analyzer.reusableTokenStream("field", reader));
+	}
+
+	/**
+	 * Consumes the stream and returns one line per token with its term,
+	 * offsets, position increment, type and base form, and a last line with
+	 * the final offset.
+	 */
+	public static List<String> tokens(TokenStream stream) throws IOException {
+		List<String> tokens = new ArrayList<String>();
+		CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+		OffsetAttribute offset = stream.addAttribute(OffsetAttribute.class);
+		PositionIncrementAttribute posInc = stream.addAttribute(PositionIncrementAttribute.class);
+		TypeAttribute type = stream.addAttribute(TypeAttribute.class);
+		BaseFormAttribute baseForm = stream.hasAttribute(BaseFormAttribute.class)
+				? stream.getAttribute(BaseFormAttribute.class) : null;
+		stream.reset();
+		while (stream.incrementToken()) {
+			StringBuilder token = new StringBuilder();
+			token.append(term).append(' ').append(offset.startOffset()).append('-').append(offset.endOffset());
+			token.append(" +").append(posInc.getPositionIncrement()).append(' ').append(type.type());
+			if (baseForm != null) {
+				token.append(' ').append(baseForm.getBaseForm());
+			}
+			tokens.add(token.toString());
+		}
+		stream.end();
+		tokens.add("end " + offset.endOffset());
+		stream.close();
+		return tokens;
+	}
+
+	/**
+	 * Returns a random text of up to maxLength chars of mixed scripts
+	 */
+	public static String randomText(Random random, int maxLength) {
+		int length = random.nextInt(maxLength + 1);
+		StringBuilder text = new StringBuilder(length);
+		while (text.length() < length) {
+			int index = random.nextInt(CHARS.length());
+			if (Character.isLowSurrogate(CHARS.charAt(index))) {
+				index--;
+			}
+			text.append(CHARS.charAt(index));
+			if (Character.isHighSurrogate(CHARS.charAt(index))) {
+				text.append(CHARS.charAt(index + 1));
+			}
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Returns a reader of the text which returns at most chunk chars per
+	 * read, as char filters and network streams may do.
+	 */
+	public static Reader chunkedReader(String text, final int chunk) {
+		return new StringReader(text) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, chunk));
+			}
+		};
+	}
+
+}
@@ -0,0 +1,95 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Replayed analysis results must be the same as analyzed ones
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiAnalysisCache {
+
+	private KuromojiTokenizerRegistry registry;
+
+	private KuromojiAnalyzer uncached;
+
+	private List<String> texts;
+
+	@Before
+	public void setUp() {
+		registry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		uncached = new KuromojiAnalyzer(registry, true, Mode.SEARCH);
+		Random random = new Random(5);
+		texts = new ArrayList<String>();
+		for (int i = 0; i < 300; i++) {
+			texts.add(randomText(random, 80));
+		}
+		texts.add("");
+		texts.add("東京都に住んでいる");
+		texts.add("ｶﾞｲﾄﾞﾌﾞｯｸのＣＯＭＰＵＴＥＲ、読んだ？");
+	}
+
+	@After
+	public void tearDown() {
+		uncached.close();
+	}
+
+	private KuromojiAnalyzer cached(KuromojiAnalysisCache cache) {
+		return new KuromojiAnalyzer(registry, true, Mode.SEARCH, KuromojiStopTags.defaults(), cache, null, null);
+	}
+
+	@Test
+	public void testReplayedTokens() throws Exception {
+		KuromojiAnalysisCache cache = new KuromojiAnalysisCache(10 * 1024 * 1024, 256);
+		KuromojiAnalyzer analyzer = cached(cache);
+		for (int pass = 0; pass < 2; pass++) {
+			for (String text : texts) {
+				assertEquals(text, tokens(uncached, text), tokens(analyzer, text));
+			}
+		}
+		assertTrue(cache.hits() >= texts.size());
+		assertEquals(0, cache.evictions());
+		analyzer.close();
+	}
+
+	@Test
+	public void testEvictedTokens() throws Exception {
+		KuromojiAnalysisCache cache = new KuromojiAnalysisCache(4096, 256);
+		KuromojiAnalyzer analyzer = cached(cache);
+		Random random = new Random(11);
+		for (int i = 0; i < 2000; i++) {
+			String text = texts.get(random.nextInt(texts.size()));
+			assertEquals(text, tokens(uncached, text), tokens(analyzer, text));
+		}
+		assertTrue(cache.evictions() > 0);
+		assertTrue(cache.sizeInBytes() <= 4096);
+		analyzer.close();
+	}
+
+	@Test
+	public void testLongTextsAreNotCached() throws Exception {
+		KuromojiAnalysisCache cache = new KuromojiAnalysisCache(10 * 1024 * 1024, 16);
+		KuromojiAnalyzer analyzer = cached(cache);
+		String text = "東京都に住んでいる人はＣＯＭＰＵＴＥＲを持っている";
+		for (int pass = 0; pass < 2; pass++) {
+			assertEquals(tokens(uncached, text), tokens(analyzer, text));
+		}
+		assertEquals(0, cache.count());
+		assertEquals(0, cache.hits());
+		analyzer.close();
+	}
+
+}
@@ -0,0 +1,103 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.chunkedReader;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.apache.lucene.analysis.CharReader;
+import org.junit.Test;
+
+/**
+ * Normalized text and corrected offsets of KuromojiNormalizeFilter
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiNormalizeFilter {
+
+	@Test
+	public void testNormalize() throws Exception {
+		assertEquals("abc ガギパ ねこ 123 ", normalize(new StringReader("ＡＢＣ、ｶﾞｷﾞﾊﾟ ねこ「１２３」"), 1024).text);
+	}
+
+	@Test
+	public void testCorrectedOffsets() throws Exception {
+		Normalized normalized = normalize(new StringReader("ｶﾞｷﾞ ねこ"), 1024);
+		assertEquals("ガギ ねこ", normalized.text);
+		assertArrayEquals(new int[] { 0, 2, 4, 5, 6, 7 }, normalized.offsets);
+	}
+
+	@Test
+	public void testUncombinedVoicedMarks() throws Exception {
+		// marks after non kana and second marks are folded alone
+		Normalized normalized = normalize(new StringReader("aﾞｶﾞﾞ"), 1024);
+		assertEquals("a゙ガ゙", normalized.text);
+		assertArrayEquals(new int[] { 0, 1, 2, 4, 5 }, normalized.offsets);
+	}
+
+	@Test
+	public void testVoicedMarkAtReadBoundary() throws Exception {
+		// the mark of the second read is combined with the last char of the first one
+		Normalized normalized = normalize(chunkedReader("ｶﾞｷﾞｸﾞ", 1), 1);
+		assertEquals("ガギグ", normalized.text);
+		assertArrayEquals(new int[] { 0, 2, 4, 6 }, normalized.offsets);
+	}
+
+	@Test
+	public void testReadSizes() throws Exception {
+		Random random = new Random(3);
+		String chars = "ｶｷｸﾊﾋﾌｳﾞﾟﾞﾟあがアガＡａ 。、\n";
+		for (int i = 0; i < 200; i++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(64);
+			for (int j = 0; j < length; j++) {
+				text.append(chars.charAt(random.nextInt(chars.length())));
+			}
+			Normalized expected = normalize(new StringReader(text.toString()), 1024);
+			for (int chunk = 1; chunk < 8; chunk++) {
+				for (int len = 1; len < 8; len++) {
+					Normalized normalized = normalize(chunkedReader(text.toString(), chunk), len);
+					assertEquals(text.toString(), expected.text, normalized.text);
+					assertArrayEquals(text.toString(), expected.offsets, normalized.offsets);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the normalized text len chars at a time, and corrects the
+	 * offset of each of its chars and of its end.
+	 */
+	private static Normalized normalize(Reader reader, int len) throws IOException {
+		KuromojiNormalizeFilter filter = new KuromojiNormalizeFilter(CharReader.get(reader));
+		StringBuilder text = new StringBuilder();
+		char[] buffer = new char[len];
+		int read;
+		while ((read = filter.read(buffer, 0, len)) >= 0) {
+			text.append(buffer, 0, read);
+		}
+		int[] offsets = new int[text.length() + 1];
+		for (int i = 0; i < offsets.length; i++) {
+			offsets[i] = filter.correctOffset(i);
+		}
+		return new Normalized(text.toString(), offsets);
+	}
+
+	private static class Normalized {
+
+		private final String text;
+
+		private final int[] offsets;
+
+		Normalized(String text, int[] offsets) {
+			this.text = text;
+			this.offsets = offsets;
+		}
+
+	}
+
+}
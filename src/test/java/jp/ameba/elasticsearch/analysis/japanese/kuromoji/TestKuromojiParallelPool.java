@@ -0,0 +1,82 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.ElasticSearchIllegalStateException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.concurrent.jsr166y.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Documents segmented in parallel must be analyzed as sequentially
+ * segmented ones are
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiParallelPool {
+
+	private KuromojiTokenizerRegistry registry;
+
+	private KuromojiParallelPool pool;
+
+	@Before
+	public void setUp() {
+		registry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		pool = new KuromojiParallelPool(ImmutableSettings.settingsBuilder()
+				.put("japanese.parallel.threads", 4)
+				.build());
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+	}
+
+	@Test
+	public void testParallelTokens() throws Exception {
+		KuromojiParallelPool.Parallelism parallelism = pool.parallelism(ImmutableSettings.settingsBuilder()
+				.put("parallel.enabled", true)
+				.put("parallel.threshold", 4096)
+				.put("parallel.chunk_size", 500)
+				.build());
+		KuromojiAnalyzer sequential = new KuromojiAnalyzer(registry, true, Mode.SEARCH);
+		KuromojiAnalyzer parallel = new KuromojiAnalyzer(registry, true, Mode.SEARCH, KuromojiStopTags.defaults(), null, null, parallelism);
+		Random random = new Random(17);
+		// short and long documents alternate on the reused tokenizer
+		int[] lengths = { 100, 20000, 3000, 50000, 4096, 10, 9000 };
+		for (int length : lengths) {
+			StringBuilder text = new StringBuilder();
+			while (text.length() < length) {
+				text.append(randomText(random, 200));
+			}
+			String document = text.toString();
+			assertEquals(tokens(sequential, document), tokens(parallel, document));
+		}
+		sequential.close();
+		parallel.close();
+	}
+
+	@Test
+	public void testClose() throws Exception {
+		ForkJoinPool forkJoinPool = pool.pool();
+		pool.close();
+		assertTrue(forkJoinPool.awaitTermination(10, TimeUnit.SECONDS));
+		try {
+			pool.pool();
+			fail("closed pool was restarted");
+		} catch (ElasticSearchIllegalStateException e) {
+			// expected
+		}
+	}
+
+}
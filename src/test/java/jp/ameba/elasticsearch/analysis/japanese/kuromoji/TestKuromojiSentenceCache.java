@@ -0,0 +1,168 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.common.base.Charsets;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Sentences replayed from the sentence cache must be analyzed as
+ * segmented ones are, before and after the tokenizer is replaced
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiSentenceCache {
+
+	private static final String FOOTER = "この記事の著作権は運営会社に帰属します。無断転載を禁じます。\nCopyright 2012 Example Inc.\n";
+
+	private File dictionary;
+
+	private KuromojiTokenizerRegistry uncachedRegistry, cachedRegistry;
+
+	private KuromojiAnalyzer uncached, cached;
+
+	private List<String> texts;
+
+	@Before
+	public void setUp() throws IOException {
+		dictionary = File.createTempFile("userdict", ".csv");
+		write(dictionary, "関西国際空港,関西 国際 空港,カンサイ コクサイ クウコウ,カスタム名詞\n");
+		uncachedRegistry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		cachedRegistry = new KuromojiTokenizerRegistry(ImmutableSettings.settingsBuilder()
+				.put("japanese.sentence_cache.enabled", true)
+				.put("japanese.sentence_cache.size", "64kb")
+				.build());
+		uncached = analyzer(uncachedRegistry);
+		cached = analyzer(cachedRegistry);
+		Random random = new Random(25);
+		texts = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			texts.add(randomText(random, 200) + FOOTER);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		uncached.close();
+		cached.close();
+		dictionary.delete();
+	}
+
+	private KuromojiAnalyzer analyzer(KuromojiTokenizerRegistry registry) {
+		return new KuromojiAnalyzer(registry, true, Mode.SEARCH, KuromojiStopTags.defaults(), null, null, null, dictionary);
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes(Charsets.UTF_8));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void assertSameTokens() throws IOException {
+		for (String text : texts) {
+			assertEquals(text, tokens(uncached, text), tokens(cached, text));
+		}
+	}
+
+	@Test
+	public void testReplayedSentences() throws Exception {
+		KuromojiSentenceCache sentenceCache = cachedRegistry.acquire(Mode.SEARCH, true, dictionary).sentenceCache();
+		for (int pass = 0; pass < 2; pass++) {
+			assertSameTokens();
+		}
+		// runs of the footer and of the second pass are replayed, some are evicted
+		assertTrue(sentenceCache.hits() > texts.size() / 4);
+		assertTrue(sentenceCache.evictions() > 0);
+	}
+
+	@Test
+	public void testDictionarySwap() throws Exception {
+		KuromojiTokenizerRegistry.Entry uncachedEntry = uncachedRegistry.acquire(Mode.SEARCH, true, dictionary);
+		KuromojiTokenizerRegistry.Entry cachedEntry = cachedRegistry.acquire(Mode.SEARCH, true, dictionary);
+		KuromojiSentenceCache sentenceCache = cachedEntry.sentenceCache();
+		assertSameTokens();
+		char[] footer = FOOTER.toCharArray();
+		List<Token> previous = sentenceCache.tokenize(cachedEntry.tokenizer(), footer, 0, 20);
+		assertTrue(sentenceCache.count() > 0);
+
+		write(dictionary, "関西国際空港,関西 国際 空港,カンサイ コクサイ クウコウ,カスタム名詞\n東京都,東京 都,トウキョウ ト,カスタム名詞\n");
+		assertTrue(uncachedRegistry.reload(uncachedEntry));
+		assertTrue(cachedRegistry.reload(cachedEntry));
+		assertEquals(0, sentenceCache.count());
+		for (int pass = 0; pass < 2; pass++) {
+			assertSameTokens();
+		}
+		// tokens of the previous tokenizer are never replayed
+		List<Token> current = sentenceCache.tokenize(cachedEntry.tokenizer(), footer, 0, 20);
+		assertNotSame(previous, current);
+		assertSame(current, sentenceCache.tokenize(cachedEntry.tokenizer(), footer, 0, 20));
+
+		uncachedRegistry.release(uncachedEntry);
+		cachedRegistry.release(cachedEntry);
+	}
+
+	@Test
+	public void testReplacedTokenizer() throws Exception {
+		Tokenizer previous = Tokenizer.builder().build();
+		Tokenizer current = Tokenizer.builder().build();
+		KuromojiSentenceCache sentenceCache = new KuromojiSentenceCache(1024 * 1024, 256);
+		sentenceCache.register(previous);
+		char[] sentence = "東京都に住んでいる。".toCharArray();
+		sentenceCache.tokenize(previous, sentence, 0, sentence.length);
+		assertEquals(1, sentenceCache.count());
+		sentenceCache.register(current);
+		sentenceCache.invalidate(previous);
+		assertEquals(0, sentenceCache.count());
+		assertEquals(0, sentenceCache.sizeInBytes());
+		// a document still analyzed with the previous tokenizer does not fill the cache
+		sentenceCache.tokenize(previous, sentence, 0, sentence.length);
+		assertEquals(0, sentenceCache.count());
+		List<Token> tokens = sentenceCache.tokenize(current, sentence, 0, sentence.length);
+		assertSame(tokens, sentenceCache.tokenize(current, sentence, 0, sentence.length));
+		assertEquals(1, sentenceCache.hits());
+	}
+
+	@Test
+	public void testSharedByConfigurations() throws Exception {
+		KuromojiTokenizerRegistry.Entry search = cachedRegistry.acquire(Mode.SEARCH, true);
+		KuromojiTokenizerRegistry.Entry normal = cachedRegistry.acquire(Mode.NORMAL, true);
+		KuromojiSentenceCache sentenceCache = search.sentenceCache();
+		assertSame(sentenceCache, normal.sentenceCache());
+		char[] sentence = "関西国際空港に行きました。".toCharArray();
+		List<Token> searchTokens = sentenceCache.tokenize(search.tokenizer(), sentence, 0, sentence.length);
+		List<Token> normalTokens = sentenceCache.tokenize(normal.tokenizer(), sentence, 0, sentence.length);
+		// the same sentence is kept for each tokenizer
+		assertNotSame(searchTokens, normalTokens);
+		assertEquals(2, sentenceCache.count());
+		assertSame(searchTokens, sentenceCache.tokenize(search.tokenizer(), sentence, 0, sentence.length));
+		assertSame(normalTokens, sentenceCache.tokenize(normal.tokenizer(), sentence, 0, sentence.length));
+		// the sentences of a released tokenizer are dropped
+		cachedRegistry.release(normal);
+		assertEquals(1, sentenceCache.count());
+		assertSame(searchTokens, sentenceCache.tokenize(search.tokenizer(), sentence, 0, sentence.length));
+		cachedRegistry.release(search);
+		assertEquals(0, sentenceCache.count());
+	}
+
+}
@@ -0,0 +1,116 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.chunkedReader;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.junit.Test;
+
+/**
+ * Runs of ASCII letters and digits which {@link KuromojiTokenizer} does
+ * not pass to Kuromoji must be tokenized as Kuromoji tokenizes the whole
+ * sentence, next to particles, counters and dictionary words as well, and
+ * text without clause ends must not be cut between chunks
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiTokenizer {
+
+	/** texts shorter than a sentence, so that the whole text is one */
+	private static final int MAX_LENGTH = KuromojiTokenizer.SENTENCEMIN - 8;
+
+	private static final String[] WORDS = {
+		"abc", "ABC", "iPhone", "T", "tv", "3", "2012", "10", "個", "年", "を", "読んだ", "東京", "シャツ",
+		"は", "に", "買った", "新型", "約", "第", "ｱｲｳ", "漢字", " ", "  ", "\t", "\n", "\r\n", "-", ".", "。", "、", "（", "）",
+	};
+
+	/** words without spaces or clause ends */
+	private static final String[] UNBROKEN_WORDS = {
+		"abc", "iPhone", "3", "2012", "個", "年", "を", "読んだ", "東京", "シャツ", "は", "に", "買った", "新型", "漢字", "-",
+	};
+
+	private static final String[] TEXTS = {
+		"ABCを読んだ",
+		"ABC を読んだ",
+		"3個買った",
+		"3 個買った",
+		"2012年に東京に",
+		"2012 年 東京",
+		"Tシャツを買った",
+		"T シャツ",
+		"新型iPhone 5",
+		"約10 個",
+		"abc def 2012 東京 iPhone",
+		" abc ",
+		"東京 abc",
+		"abc2012 tv-10 10.5",
+	};
+
+	private static List<String> expected(Tokenizer tokenizer, String text) {
+		List<String> tokens = new ArrayList<String>();
+		for (Token token : tokenizer.tokenize(text)) {
+			String surface = token.getSurfaceForm();
+			String baseForm = token.getBaseForm();
+			if (surface.equals(baseForm)) {
+				baseForm = null;
+			}
+			tokens.add(surface + " " + token.getPosition() + "-" + (token.getPosition() + surface.length()) + " +1 "
+					+ token.getPartOfSpeech() + " " + baseForm);
+		}
+		tokens.add("end " + text.length());
+		return tokens;
+	}
+
+	private static void assertTokens(Tokenizer tokenizer, String text) throws IOException {
+		assertEquals(text, expected(tokenizer, text), tokens(new KuromojiTokenizer(tokenizer, new StringReader(text))));
+	}
+
+	private static String randomText(Random random) {
+		StringBuilder text = new StringBuilder();
+		while (true) {
+			String word = WORDS[random.nextInt(WORDS.length)];
+			if (text.length() + word.length() > MAX_LENGTH) {
+				return text.toString();
+			}
+			text.append(word);
+		}
+	}
+
+	@Test
+	public void testMixedScripts() throws Exception {
+		for (Mode mode : Mode.values()) {
+			Tokenizer tokenizer = Tokenizer.builder().mode(mode).build();
+			for (String text : TEXTS) {
+				assertTokens(tokenizer, text);
+			}
+			Random random = new Random(21);
+			for (int i = 0; i < 2000; i++) {
+				assertTokens(tokenizer, randomText(random));
+			}
+		}
+	}
+
+	@Test
+	public void testTextWithoutClauseEnds() throws Exception {
+		Tokenizer tokenizer = Tokenizer.builder().mode(Mode.SEARCH).build();
+		Random random = new Random(1);
+		for (int i = 0; i < 8; i++) {
+			StringBuilder text = new StringBuilder();
+			while (text.length() < 2 * KuromojiTokenizer.BUFFERMAX) {
+				text.append(UNBROKEN_WORDS[random.nextInt(UNBROKEN_WORDS.length)]);
+			}
+			String string = text.toString();
+			assertEquals(expected(tokenizer, string), tokens(new KuromojiTokenizer(tokenizer, chunkedReader(string, 1000))));
+		}
+	}
+
+}
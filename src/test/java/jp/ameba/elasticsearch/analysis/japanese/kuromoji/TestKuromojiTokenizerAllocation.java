@@ -0,0 +1,186 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.lucene.analysis.CharReader;
+import org.apache.lucene.analysis.TokenStream;
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The default chain of {@link KuromojiAnalyzer}, {@link KuromojiTokenizer}
+ * with {@link KuromojiTypeFilter} and {@link KuromojiBaseFormFilter}, must
+ * not allocate per token once it is warmed up, but what Kuromoji does.
+ * <p>
+ * Kuromoji 0.7.7 segments a String, and allocates the lattice of the run
+ * and a Token per word. The tokenizer is given a Kuromoji tokenizer which
+ * returns the tokens of the runs it has already segmented, so that only
+ * the String of each run given to Kuromoji remains. Its allocation is
+ * measured on its own and subtracted. Runs of latin letters, digits and
+ * spaces are not given to Kuromoji. The sentence cache is not enabled.
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiTokenizerAllocation {
+
+	private static final int WARMUP = 5;
+
+	private com.sun.management.ThreadMXBean threads;
+
+	private MemoizingTokenizer tokenizer;
+
+	@Before
+	public void setUp() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		tokenizer = new MemoizingTokenizer(Tokenizer.builder().mode(Mode.SEARCH).build());
+	}
+
+	@Test
+	public void testLatinTokens() throws Exception {
+		String[] sentences = { "The quick brown fox 123 ", "jumps over 42 lazy dogs\n", "ABC def 2012 " };
+		double bytesPerToken = bytesPerToken(documents(sentences));
+		assertTrue("allocated " + bytesPerToken + " bytes per token", bytesPerToken < 0.01);
+	}
+
+	@Test
+	public void testSegmentedTokens() throws Exception {
+		String[] sentences = {
+				"東京都に住んでいる人は多い。",
+				"今日はいい天気ですね、ABC 123 の話をしよう。",
+				"ガイドブックのコンピューターを読んだ！",
+				"これはペンです。",
+				"関西国際空港に行きました\n",
+				"走った人が走ります。" };
+		double bytesPerToken = bytesPerToken(documents(sentences));
+		assertTrue("allocated " + bytesPerToken + " bytes per token", bytesPerToken < 0.01);
+	}
+
+	private static String[] documents(String[] sentences) {
+		Random random = new Random(1);
+		String[] documents = new String[200];
+		for (int i = 0; i < documents.length; i++) {
+			StringBuilder document = new StringBuilder();
+			for (int j = 0; j < 30; j++) {
+				document.append(sentences[random.nextInt(sentences.length)]);
+			}
+			documents[i] = document.toString();
+		}
+		return documents;
+	}
+
+	/**
+	 * Analyzes the documents a few times to warm up the chain, the JIT and
+	 * the Kuromoji tokenizer, then returns the bytes allocated per token by
+	 * the thread over one more pass, less the Strings of the runs given to
+	 * Kuromoji. Readers are created before measuring.
+	 */
+	private double bytesPerToken(String[] documents) throws IOException {
+		KuromojiTokenizer source = new KuromojiTokenizer(tokenizer, new StringReader(""));
+		TokenStream chain = new KuromojiBaseFormFilter(new KuromojiTypeFilter(true, source));
+		long threadId = Thread.currentThread().getId();
+		double bytesPerToken = 0;
+		for (int pass = 0; pass <= WARMUP; pass++) {
+			Reader[] readers = new Reader[documents.length];
+			for (int i = 0; i < documents.length; i++) {
+				readers[i] = new KuromojiNormalizeFilter(CharReader.get(new StringReader(documents[i])));
+			}
+			if (pass == WARMUP) {
+				tokenizer.record(tokenizer.count);
+			}
+			tokenizer.count = 0;
+			long tokens = 0;
+			long before = threads.getThreadAllocatedBytes(threadId);
+			for (Reader reader : readers) {
+				source.reset(reader);
+				chain.reset();
+				while (chain.incrementToken()) {
+					tokens++;
+				}
+				chain.end();
+			}
+			long after = threads.getThreadAllocatedBytes(threadId);
+			bytesPerToken = (double) (after - before - runStrings()) / tokens;
+		}
+		chain.close();
+		return bytesPerToken;
+	}
+
+	/**
+	 * Returns the bytes allocated by the Strings of the runs recorded
+	 */
+	private long runStrings() {
+		if (tokenizer.texts == null) {
+			return 0;
+		}
+		char[][] chars = new char[tokenizer.count][];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = tokenizer.texts[i].toCharArray();
+		}
+		String[] strings = new String[chars.length];
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < chars.length; i++) {
+			strings[i] = new String(chars[i], 0, chars[i].length);
+		}
+		long after = threads.getThreadAllocatedBytes(threadId);
+		return after - before;
+	}
+
+	/**
+	 * Returns the tokens segmented before for a text, and records the texts
+	 * it is given
+	 */
+	private static class MemoizingTokenizer extends Tokenizer {
+
+		private final Tokenizer tokenizer;
+
+		private final Map<String, List<Token>> segmented = new HashMap<String, List<Token>>();
+
+		/** texts given, recorded if not null */
+		private String[] texts;
+
+		private int count;
+
+		MemoizingTokenizer(Tokenizer tokenizer) {
+			super(null, Mode.SEARCH, true);
+			this.tokenizer = tokenizer;
+		}
+
+		void record(int texts) {
+			this.texts = new String[texts];
+		}
+
+		@Override
+		public List<Token> tokenize(String text) {
+			if (texts != null) {
+				texts[count] = text;
+			}
+			count++;
+			List<Token> tokens = segmented.get(text);
+			if (tokens == null) {
+				tokens = tokenizer.tokenize(text);
+				segmented.put(text, tokens);
+			}
+			return tokens;
+		}
+
+	}
+
+}
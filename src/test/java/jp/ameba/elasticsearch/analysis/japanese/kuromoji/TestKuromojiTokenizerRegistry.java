@@ -0,0 +1,228 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStats;
+import jp.ameba.elasticsearch.analysis.japanese.stats.AnalysisStatsService;
+
+import org.apache.lucene.analysis.TokenStream;
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.elasticsearch.ElasticSearchIllegalArgumentException;
+import org.elasticsearch.common.base.Charsets;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.Index;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Shared tokenizers, their reload and the caches cleared with it
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiTokenizerRegistry {
+
+	private static final List<String> TEXTS = Arrays.asList("東京都に住んでいる", "関西国際空港に行きました", "ABC 123");
+
+	private KuromojiTokenizerRegistry registry;
+
+	private File dictionary;
+
+	@Before
+	public void setUp() throws IOException {
+		registry = new KuromojiTokenizerRegistry(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		dictionary = File.createTempFile("userdict", ".csv");
+		write(dictionary, "関西国際空港,関西 国際 空港,カンサイ コクサイ クウコウ,カスタム名詞\n");
+	}
+
+	@After
+	public void tearDown() {
+		dictionary.delete();
+	}
+
+	private static void write(File file, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes(Charsets.UTF_8));
+		} finally {
+			out.close();
+		}
+	}
+
+	private KuromojiAnalyzer analyzer(KuromojiAnalysisCache cache) {
+		return new KuromojiAnalyzer(registry, true, Mode.SEARCH, KuromojiStopTags.defaults(), cache, null, null, dictionary);
+	}
+
+	@Test
+	public void testShared() throws Exception {
+		KuromojiAnalyzer first = analyzer(null);
+		KuromojiAnalyzer second = analyzer(null);
+		KuromojiAnalyzer other = new KuromojiAnalyzer(registry, true, Mode.SEARCH);
+		assertEquals(2, registry.size());
+		first.close();
+		second.close();
+		assertEquals(1, registry.size());
+		other.close();
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void testReload() throws Exception {
+		KuromojiAnalysisCache firstCache = new KuromojiAnalysisCache(1024 * 1024, 256);
+		KuromojiAnalysisCache secondCache = new KuromojiAnalysisCache(1024 * 1024, 256);
+		KuromojiAnalyzer first = analyzer(firstCache);
+		KuromojiAnalyzer second = analyzer(secondCache);
+		KuromojiAnalyzer uncached = analyzer(null);
+		KuromojiTokenizerRegistry.Entry entry = registry.acquire(Mode.SEARCH, true, dictionary);
+		for (String text : TEXTS) {
+			tokens(first, text);
+			tokens(second, text);
+		}
+		assertEquals(TEXTS.size(), firstCache.count());
+		assertEquals(TEXTS.size(), secondCache.count());
+
+		// unchanged files are not reloaded
+		assertFalse(registry.reload(entry));
+		assertEquals(TEXTS.size(), firstCache.count());
+
+		Tokenizer previous = entry.tokenizer();
+		write(dictionary, "関西国際空港,関西 国際 空港,カンサイ コクサイ クウコウ,カスタム名詞\n東京都,東京 都,トウキョウ ト,カスタム名詞\n");
+		assertTrue(registry.reload(entry));
+		assertNotSame(previous, entry.tokenizer());
+		assertEquals(2, entry.dictionary().entries());
+		// every cache of the entry is cleared once, by the reload
+		assertEquals(0, firstCache.count());
+		assertEquals(0, secondCache.count());
+		long generation = firstCache.generation();
+
+		for (int pass = 0; pass < 2; pass++) {
+			for (String text : TEXTS) {
+				assertEquals(tokens(uncached, text), tokens(first, text));
+			}
+		}
+		assertEquals(TEXTS.size(), firstCache.count());
+		assertEquals(generation, firstCache.generation());
+
+		// closed analyzers do not have their cache cleared anymore
+		first.close();
+		write(dictionary, "");
+		assertTrue(registry.reload(entry));
+		assertEquals(TEXTS.size(), firstCache.count());
+		assertEquals(0, secondCache.count());
+
+		registry.release(entry);
+		second.close();
+		uncached.close();
+		assertEquals(0, registry.size());
+	}
+
+	@Test
+	public void testReloadedUserWords() throws Exception {
+		KuromojiTokenizerRegistry.Entry entry = registry.acquire(Mode.SEARCH, true, dictionary);
+		assertTrue(isUserWord(entry.tokenizer(), "関西国際空港"));
+		assertFalse(isUserWord(entry.tokenizer(), "東京都"));
+		write(dictionary, "東京都,東京 都,トウキョウ ト,カスタム名詞\n");
+		assertTrue(registry.reload(entry));
+		assertFalse(isUserWord(entry.tokenizer(), "関西国際空港"));
+		assertTrue(isUserWord(entry.tokenizer(), "東京都"));
+		registry.release(entry);
+	}
+
+	private static boolean isUserWord(Tokenizer tokenizer, String text) {
+		for (Token token : tokenizer.tokenize(text)) {
+			if (!token.isUser()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Test
+	public void testConcurrentReloads() throws Exception {
+		final KuromojiTokenizerRegistry.Entry entry = registry.acquire(Mode.SEARCH, true, dictionary);
+		long loads = entry.dictionary().loads();
+		write(dictionary, "東京都,東京 都,トウキョウ ト,カスタム名詞\n");
+		final AtomicInteger reloaded = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					if (registry.reload(entry)) {
+						reloaded.incrementAndGet();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, reloaded.get());
+		assertEquals(loads + 1, entry.dictionary().loads());
+		registry.release(entry);
+	}
+
+	@Test
+	public void testStaleResultsAreNotCached() throws Exception {
+		KuromojiAnalysisCache cache = new KuromojiAnalysisCache(1024 * 1024, 256);
+		KuromojiAnalyzer analyzer = analyzer(cache);
+		KuromojiTokenizerRegistry.Entry entry = registry.acquire(Mode.SEARCH, true, dictionary);
+		TokenStream stream = analyzer.reusableTokenStream("field", new StringReader(TEXTS.get(0)));
+		stream.reset();
+		// the document is analyzed with the previous tokenizer
+		write(dictionary, "");
+		assertTrue(registry.reload(entry));
+		while (stream.incrementToken()) {
+			// recorded for the cache
+		}
+		stream.end();
+		assertEquals(0, cache.count());
+		// the next one uses the new tokenizer
+		tokens(analyzer, TEXTS.get(0));
+		assertEquals(1, cache.count());
+		registry.release(entry);
+		analyzer.close();
+	}
+
+	@Test
+	public void testFailedLoadClosesStats() throws Exception {
+		AnalysisStatsService statsService = new AnalysisStatsService(ImmutableSettings.Builder.EMPTY_SETTINGS);
+		AnalysisStats stats = statsService.register(new Index("test"), "body", ImmutableSettings.Builder.EMPTY_SETTINGS);
+		assertSame(stats, statsService.stats().get(0));
+		File missing = new File(dictionary.getPath() + ".missing");
+		try {
+			new KuromojiAnalyzer(registry, true, Mode.SEARCH, KuromojiStopTags.defaults(), null, stats, null, missing);
+			fail("missing user dictionary was loaded");
+		} catch (ElasticSearchIllegalArgumentException e) {
+			// expected
+		}
+		assertTrue(statsService.stats().isEmpty());
+		assertEquals(0, registry.size());
+	}
+
+}
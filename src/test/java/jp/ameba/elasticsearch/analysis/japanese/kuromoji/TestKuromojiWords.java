@@ -0,0 +1,46 @@
+package jp.ameba.elasticsearch.analysis.japanese.kuromoji;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+
+import org.atilika.kuromoji.Token;
+import org.atilika.kuromoji.Tokenizer;
+import org.atilika.kuromoji.Tokenizer.Mode;
+import org.junit.Test;
+
+/**
+ * Words kept by {@link KuromojiWords} must have the part of speech and
+ * the base form Kuromoji gives their tokens
+ *
+ * @author namura_suguru
+ */
+public class TestKuromojiWords {
+
+	@Test
+	public void testWordsOfTokens() throws Exception {
+		for (Mode mode : Mode.values()) {
+			Tokenizer tokenizer = Tokenizer.builder().mode(mode).build();
+			Random random = new Random(7);
+			for (int i = 0; i < 500; i++) {
+				for (Token token : tokenizer.tokenize(randomText(random, 200) + " abc 2012")) {
+					KuromojiWords.Word word = KuromojiWords.word(token);
+					assertNotNull(token.getSurfaceForm(), word);
+					assertEquals(token.getPartOfSpeech(), word.partOfSpeech());
+					assertEquals(KuromojiPartOfSpeech.id(token.getPartOfSpeech()), word.partOfSpeechId());
+					String baseForm = token.getBaseForm();
+					if (baseForm == null || baseForm.equals(token.getSurfaceForm())) {
+						assertEquals(null, word.baseForm());
+					} else {
+						assertEquals(baseForm, new String(word.baseForm()));
+					}
+					assertSame(word, KuromojiWords.word(token));
+				}
+			}
+		}
+	}
+
+}
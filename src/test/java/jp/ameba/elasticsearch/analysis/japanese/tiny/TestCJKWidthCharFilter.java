@@ -0,0 +1,96 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.chunkedReader;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.lucene.analysis.CharReader;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.junit.Test;
+
+/**
+ * Halfwidth text read through CJKWidthCharFilter must be analyzed as the
+ * same text normalized beforehand.
+ *
+ * @author namura_suguru
+ */
+public class TestCJKWidthCharFilter {
+  private static final String HALFWIDTH = "ｶﾞｲﾄﾞﾌﾞｯｸのコンピューターを読んだ";
+  private static final String NORMALIZED = "ガイドブックのコンピューターを読んだ";
+
+  @Test
+  public void testNormalize() throws Exception {
+    assertEquals(NORMALIZED, normalize(new StringReader(HALFWIDTH), 1024));
+    // marks which can not be combined are folded alone
+    assertEquals("ABC ァ\u3099 ガ\u3099", normalize(new StringReader("ＡＢＣ ｧﾞ ｶﾞﾞ"), 1024));
+  }
+
+  @Test
+  public void testHalfwidthTokens() throws Exception {
+    StringBuilder halfwidth = new StringBuilder();
+    StringBuilder normalized = new StringBuilder();
+    for (int i = 0; i < 600; i++) {
+      halfwidth.append(HALFWIDTH);
+      normalized.append(NORMALIZED);
+    }
+    TinyJapaneseAnalyzer analyzer = new TinyJapaneseAnalyzer();
+    List<String> expected = terms(analyzer.reusableTokenStream("field", new StringReader(normalized.toString())));
+    List<String> terms = terms(analyzer.reusableTokenStream("field", new StringReader(halfwidth.toString())));
+    assertEquals(3600, expected.size());
+    assertEquals(expected, terms);
+  }
+
+  @Test
+  public void testFullReads() throws Exception {
+    Random random = new Random(29);
+    String chars = "ｶｷｸﾊﾋﾌｳﾞﾟﾞﾟあアガＡａ 。";
+    for (int i = 0; i < 200; i++) {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(64);
+      for (int j = 0; j < length; j++) {
+        text.append(chars.charAt(random.nextInt(chars.length())));
+      }
+      String expected = normalize(new StringReader(text.toString()), 1024);
+      for (int chunk = 1; chunk < 8; chunk++) {
+        for (int len = 1; len < 8; len++) {
+          assertEquals(text.toString(), expected, normalize(chunkedReader(text.toString(), chunk), len));
+        }
+      }
+    }
+  }
+
+  /** reads the filter len chars at a time, checking that only the last read is short */
+  private static String normalize(Reader reader, int len) throws IOException {
+    CJKWidthCharFilter filter = new CJKWidthCharFilter(CharReader.get(reader));
+    StringBuilder text = new StringBuilder();
+    char[] buffer = new char[len];
+    int read;
+    boolean shortRead = false;
+    while ((read = filter.read(buffer, 0, len)) >= 0) {
+      assertTrue("short read before the end", !shortRead);
+      shortRead = read < len;
+      text.append(buffer, 0, read);
+    }
+    return text.toString();
+  }
+
+  private static List<String> terms(TokenStream stream) throws IOException {
+    List<String> terms = new ArrayList<String>();
+    CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+    stream.reset();
+    while (stream.incrementToken()) {
+      terms.add(term.toString());
+    }
+    stream.end();
+    stream.close();
+    return terms;
+  }
+}
@@ -0,0 +1,65 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.chunkedReader;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Single line documents, which the buffer of SegmentingTokenizerBase can
+ * only be processed up to sentence punctuation or its end, must be
+ * segmented as the unoptimized {@link TinySegmenterReference} does,
+ * whatever their reader returns at once.
+ *
+ * @author namura_suguru
+ */
+public class TestSegmentingTokenizerBase {
+  private final TinySegmenterModel model = TinySegmenterModel.defaultModel();
+
+  @Test
+  public void testSentencePunctuation() throws Exception {
+    // a few thousand chars with sentence punctuation but no newline
+    assertSingleLine(singleLine(new Random(19), 20000, true));
+  }
+
+  @Test
+  public void testNoBreaks() throws Exception {
+    // the buffer grows until the whole line fits
+    assertSingleLine(singleLine(new Random(23), 3 * SegmentingTokenizerBase.BUFFERMAX, false));
+  }
+
+  private void assertSingleLine(String text) throws Exception {
+    List<String> expected = new TinySegmenterReference(model).tokens(text);
+    TinyJapaneseTokenizer tokenizer = new TinyJapaneseTokenizer(model, new StringReader(""));
+    tokenizer.reset(new StringReader(text));
+    assertEquals(expected, tokens(tokenizer));
+    for (int chunk : new int[] { 1, 7, 1000, 4095 }) {
+      tokenizer.reset(chunkedReader(text, chunk));
+      assertEquals("chunks of " + chunk, expected, tokens(tokenizer));
+    }
+    TinyJapaneseTokenizer large = new TinyJapaneseTokenizer(model, 1 << 16, 1 << 16, chunkedReader(text, 100));
+    assertEquals(expected, tokens(large));
+  }
+
+  /** random text without newlines, and without sentence punctuation unless punctuated */
+  private static String singleLine(Random random, int length, boolean punctuated) {
+    StringBuilder text = new StringBuilder(length);
+    while (text.length() < length) {
+      for (char ch : randomText(random, 100).toCharArray()) {
+        if (ch == '\n') {
+          ch = ' ';
+        } else if (!punctuated && (ch == '。' || ch == '！' || ch == '？' || ch == '!' || ch == '?')) {
+          ch = '、';
+        }
+        text.append(ch);
+      }
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,85 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.randomText;
+import static jp.ameba.elasticsearch.analysis.japanese.AnalysisTests.tokens;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * TinyJapaneseTokenizer must segment text as the unoptimized
+ * {@link TinySegmenterReference} does, which scores every position as if
+ * the model joined no runs.
+ *
+ * @author namura_suguru
+ */
+public class TestTinyJapaneseTokenizer {
+  private static final String[] SENTENCES = {
+    "私の名前は中野です。",
+    "日本語の新聞記事を読んでいます！",
+    "TinySegmenterはJavascriptだけ書かれた極めてコンパクトな日本語分かち書きソフトウェアです。",
+    "2012年1月1日の東京の天気は晴れ、気温は10度でした",
+    "「本当に？」と彼は言った（笑）",
+    "𠮷野家で牛丼を食べた\n次の日も食べた\r\n"
+  };
+
+  private final TinySegmenterModel model = TinySegmenterModel.defaultModel();
+
+  @Test
+  public void testSentences() throws Exception {
+    TinyJapaneseTokenizer tokenizer = new TinyJapaneseTokenizer(model, new StringReader(""));
+    for (String sentence : SENTENCES) {
+      assertSegmentation(model, tokenizer, sentence);
+    }
+    StringBuilder text = new StringBuilder();
+    for (String sentence : SENTENCES) {
+      text.append(sentence);
+    }
+    assertSegmentation(model, tokenizer, text.toString());
+  }
+
+  @Test
+  public void testRandomText() throws Exception {
+    TinyJapaneseTokenizer tokenizer = new TinyJapaneseTokenizer(model, new StringReader(""));
+    Random random = new Random(13);
+    for (int i = 0; i < 1000; i++) {
+      assertSegmentation(model, tokenizer, randomText(random, 200));
+    }
+  }
+
+  @Test
+  public void testLatinRuns() throws Exception {
+    // the built-in model joins runs of latin letters, which are skipped without being scored
+    assertTrue(model.joinsRuns(TinyJapaneseSegmenterConstants.A));
+    TinyJapaneseTokenizer tokenizer = new TinyJapaneseTokenizer(model, new StringReader(""));
+    Random random = new Random(22);
+    String[] classes = { "abcxyz", "ABCXYZ", "ＡＢｃｄ", "0123456789", "０１２", " ", "\t", "あいう", "アイウ", "。、" };
+    for (int i = 0; i < 2000; i++) {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(120);
+      while (text.length() < length) {
+        // mostly long runs of latin letters, digits and spaces, sometimes single kana
+        String chars = classes[random.nextInt(classes.length)];
+        int run = random.nextInt(4) == 0 ? 1 : 1 + random.nextInt(12);
+        for (int j = 0; j < run; j++) {
+          text.append(chars.charAt(random.nextInt(chars.length())));
+        }
+      }
+      assertSegmentation(model, tokenizer, text.toString());
+    }
+  }
+
+  /** analyzes the text with the reused tokenizer of the model and with the reference */
+  static void assertSegmentation(TinySegmenterModel model, TinyJapaneseTokenizer tokenizer, String text)
+      throws IOException {
+    tokenizer.reset(new StringReader(text));
+    List<String> expected = new TinySegmenterReference(model).tokens(text);
+    assertEquals(text, expected, tokens(tokenizer));
+  }
+}
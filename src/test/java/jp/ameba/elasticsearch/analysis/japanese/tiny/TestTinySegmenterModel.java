@@ -0,0 +1,145 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/**
+ * The default model must hold the weights TinyJapaneseSegmenterConstants
+ * had in its switches, which are listed in tinysegmenter-weights.txt.
+ * <p>
+ * Type and context features are checked for every argument, unigram
+ * character features for every char, bigram character features for every
+ * pair of the chars they weight and trigram ones for their weighted keys.
+ *
+ * @author namura_suguru
+ */
+public class TestTinySegmenterModel {
+  private static final int TYPES = 7;
+
+  private final TinySegmenterModel model = TinySegmenterModel.defaultModel();
+
+  private int bias;
+  private final List<int[]> types = new ArrayList<int[]>();
+  private final Map<String, Map<List<Integer>, Integer>> features = new LinkedHashMap<String, Map<List<Integer>, Integer>>();
+
+  @Test
+  public void testSwitchWeights() throws Exception {
+    readWeights();
+    assertEquals(bias, model.bias());
+    for (int[] range : types) {
+      for (int ch = range[0]; ch <= range[1]; ch++) {
+        assertEquals(Integer.toHexString(ch), range[2], TinyJapaneseSegmenterConstants.charType(ch));
+      }
+    }
+    assertEquals(TinySegmenterModel.FEATURES.length, features.size());
+    for (Map.Entry<String, Map<List<Integer>, Integer>> feature : features.entrySet()) {
+      String name = feature.getKey();
+      Map<List<Integer>, Integer> weights = feature.getValue();
+      int arity = weights.keySet().iterator().next().size();
+      if (name.charAt(1) != 'w') {
+        assertAll(name, weights, arity, range(TYPES));
+      } else if (arity == 1) {
+        assertAll(name, weights, arity, range(Character.MAX_VALUE + 1));
+      } else if (arity == 2) {
+        Set<Integer> chars = new TreeSet<Integer>();
+        for (List<Integer> key : weights.keySet()) {
+          chars.addAll(key);
+        }
+        assertAll(name, weights, arity, new ArrayList<Integer>(chars));
+      } else {
+        for (Map.Entry<List<Integer>, Integer> weight : weights.entrySet()) {
+          assertEquals(name + weight.getKey(), weight.getValue().intValue(), weight(name, weight.getKey()));
+        }
+      }
+    }
+  }
+
+  /** checks the feature for every key made of the values, 0 if it is not listed */
+  private void assertAll(String name, Map<List<Integer>, Integer> weights, int arity, List<Integer> values)
+      throws Exception {
+    Integer[] key = new Integer[arity];
+    int[] index = new int[arity];
+    while (true) {
+      for (int i = 0; i < arity; i++) {
+        key[i] = values.get(index[i]);
+      }
+      List<Integer> args = Arrays.asList(key);
+      Integer expected = weights.get(args);
+      assertEquals(name + args, expected == null ? 0 : expected.intValue(), weight(name, args));
+      int i = arity - 1;
+      while (i >= 0 && ++index[i] == values.size()) {
+        index[i--] = 0;
+      }
+      if (i < 0) {
+        return;
+      }
+    }
+  }
+
+  private final Map<String, Method> methods = new HashMap<String, Method>();
+
+  private int weight(String name, List<Integer> args) throws Exception {
+    Method method = methods.get(name);
+    if (method == null) {
+      Class<?>[] parameters = new Class<?>[args.size()];
+      Arrays.fill(parameters, int.class);
+      method = TinySegmenterModel.class.getMethod(name, parameters);
+      methods.put(name, method);
+    }
+    return (Integer) method.invoke(model, args.toArray());
+  }
+
+  private static List<Integer> range(int size) {
+    List<Integer> values = new ArrayList<Integer>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(i);
+    }
+    return values;
+  }
+
+  private void readWeights() throws Exception {
+    BufferedReader in = new BufferedReader(new InputStreamReader(
+        TestTinySegmenterModel.class.getResourceAsStream("tinysegmenter-weights.txt"), "UTF-8"));
+    try {
+      for (String line = in.readLine(); line != null; line = in.readLine()) {
+        if (line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(" ");
+        String name = fields[0];
+        if (name.equals("bias")) {
+          bias = Integer.parseInt(fields[1]);
+        } else if (name.equals("type")) {
+          types.add(new int[] { Integer.parseInt(fields[1], 16), Integer.parseInt(fields[2], 16), Integer.parseInt(fields[3]) });
+        } else {
+          int radix = name.charAt(1) == 'w' ? 16 : 10;
+          List<Integer> key = new ArrayList<Integer>();
+          for (int i = 1; i < fields.length - 1; i++) {
+            key.add(Integer.parseInt(fields[i], radix));
+          }
+          Map<List<Integer>, Integer> weights = features.get(name);
+          if (weights == null) {
+            weights = new HashMap<List<Integer>, Integer>();
+            features.put(name, weights);
+          }
+          weights.put(key, Integer.parseInt(fields[fields.length - 1]));
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+}
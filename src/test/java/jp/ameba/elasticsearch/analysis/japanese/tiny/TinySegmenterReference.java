@@ -0,0 +1,121 @@
+package jp.ameba.elasticsearch.analysis.japanese.tiny;
+
+import static jp.ameba.elasticsearch.analysis.japanese.tiny.TinyJapaneseSegmenterConstants.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jp.ameba.elasticsearch.analysis.japanese.util.JapaneseSentenceBreaker;
+import jp.ameba.elasticsearch.analysis.japanese.util.SentenceBreaker;
+
+/**
+ * Unoptimized TinySegmenter, the reference of {@link TinyJapaneseTokenizer}.
+ * <p>
+ * Every position of a sentence is scored with all the characters and
+ * categories of its window looked up again, as the original algorithm
+ * does, without sliding the window or skipping runs.
+ *
+ * @author namura_suguru
+ */
+class TinySegmenterReference {
+  private final TinySegmenterModel model;
+  private char[] text;
+  private int sentenceStart, sentenceEnd;
+  private int p1, p2, p3;
+
+  TinySegmenterReference(TinySegmenterModel model) {
+    this.model = model;
+  }
+
+  /**
+   * Returns the tokens of the text in the format of
+   * {@link jp.ameba.elasticsearch.analysis.japanese.AnalysisTests#tokens(org.apache.lucene.analysis.TokenStream)}
+   */
+  List<String> tokens(String input) {
+    text = input.toCharArray();
+    List<String> tokens = new ArrayList<String>();
+    SentenceBreaker breaker = new JapaneseSentenceBreaker();
+    breaker.setText(text, 0, text.length);
+    for (int end = breaker.next(); end != SentenceBreaker.DONE; end = breaker.next()) {
+      sentenceStart = sentenceEnd;
+      sentenceEnd = end;
+      segment(tokens);
+    }
+    tokens.add("end " + text.length);
+    return tokens;
+  }
+
+  private void segment(List<String> tokens) {
+    p1 = p2 = p3 = PU;
+    int start = sentenceStart, end = sentenceStart;
+    while (end < sentenceEnd) {
+      start = end;
+      boolean found = false;
+      for (end++; end < sentenceEnd; end++) {
+        if (isBoundary(end)) {
+          if (isSkipped(start)) {
+            start = end;
+          } else if (!isJoined(start, end)) {
+            found = true;
+            break;
+          }
+        }
+      }
+      // the last token of the sentence is produced unless it is punctuation
+      if (found || !isSkipped(start)) {
+        add(tokens, start, end);
+      }
+    }
+  }
+
+  private void add(List<String> tokens, int start, int end) {
+    tokens.add(new String(text, start, end - start) + " " + start + "-" + end + " +1 word");
+  }
+
+  /** punctuation tokens are not produced */
+  private boolean isSkipped(int start) {
+    char ch = text[start];
+    return !Character.isLetter(ch) && !Character.isHighSurrogate(ch) && !Character.isDigit(ch);
+  }
+
+  /** surrogate pairs and runs of digits are never broken */
+  private boolean isJoined(int start, int end) {
+    char ch = text[start];
+    return Character.isHighSurrogate(ch)
+        || (Character.isDigit(ch) && end < sentenceEnd && Character.isDigit(text[end]));
+  }
+
+  private int charAt(int pos) {
+    if (pos == sentenceStart - 3) return B3;
+    if (pos == sentenceStart - 2) return B2;
+    if (pos == sentenceStart - 1) return B1;
+    if (pos == sentenceEnd) return E1;
+    if (pos == sentenceEnd + 1) return E2;
+    if (pos == sentenceEnd + 2) return E3;
+    return text[pos];
+  }
+
+  private boolean isBoundary(int pos) {
+    final int c1 = charAt(pos - 3), c2 = charAt(pos - 2), c3 = charAt(pos - 1);
+    final int c4 = charAt(pos), c5 = charAt(pos + 1), c6 = charAt(pos + 2);
+    final int t1 = charType(c1), t2 = charType(c2), t3 = charType(c3);
+    final int t4 = charType(c4), t5 = charType(c5), t6 = charType(c6);
+    final TinySegmenterModel m = model;
+    final int score = m.bias()
+      + m.up1(p1) + m.up2(p2) + m.up3(p3)
+      + m.bp1(p1, p2) + m.bp2(p2, p3)
+      + m.uw1(c1) + m.uw2(c2) + m.uw3(c3) + m.uw4(c4) + m.uw5(c5) + m.uw6(c6)
+      + m.bw1(c2, c3) + m.bw2(c3, c4) + m.bw3(c4, c5)
+      + m.tw1(c1, c2, c3) + m.tw2(c2, c3, c4) + m.tw3(c3, c4, c5) + m.tw4(c4, c5, c6)
+      + m.uc1(t1) + m.uc2(t2) + m.uc3(t3) + m.uc4(t4) + m.uc5(t5) + m.uc6(t6)
+      + m.bc1(t2, t3) + m.bc2(t3, t4) + m.bc3(t4, t5)
+      + m.tc1(t1, t2, t3) + m.tc2(t2, t3, t4) + m.tc3(t3, t4, t5) + m.tc4(t4, t5, t6)
+      + m.uq1(p1, t1) + m.uq2(p2, t2) + m.uq3(p3, t3)
+      + m.bq1(p2, t2, t3) + m.bq2(p2, t3, t4) + m.bq3(p3, t2, t3) + m.bq4(p3, t3, t4)
+      + m.tq1(p2, t1, t2, t3) + m.tq2(p2, t2, t3, t4) + m.tq3(p3, t1, t2, t3) + m.tq4(p3, t2, t3, t4);
+    p1 = p2;
+    p2 = p3;
+    p3 = score > 0 ? PB : PO;
+    return score > 0;
+  }
+}
@@ -0,0 +1,78 @@
+package jp.ameba.elasticsearch.analysis.japanese.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Sentence boundaries of JapaneseSentenceBreaker
+ *
+ * @author namura_suguru
+ */
+public class TestJapaneseSentenceBreaker {
+
+	@Test
+	public void testSentences() {
+		assertEquals(Arrays.asList("今日は晴れ。", "明日は雨！？ ", "次\n", "最後"),
+				sentences("今日は晴れ。明日は雨！？ 次\n最後"));
+	}
+
+	@Test
+	public void testBrackets() {
+		assertEquals(Arrays.asList("「行く。来る。」と言った。", "次"),
+				sentences("「行く。来る。」と言った。次"));
+		assertEquals(Arrays.asList("彼は言った。", "「はい。」次"),
+				sentences("彼は言った。「はい。」次"));
+	}
+
+	@Test
+	public void testUnmatchedBracket() {
+		StringBuilder text = new StringBuilder("「");
+		for (int i = 0; i < 100; i++) {
+			text.append("文です。");
+		}
+		List<String> sentences = sentences(text.toString());
+		// the terminators within the first chars after the bracket are still taken as quoted
+		int quoted = sentences.get(0).length() - 1;
+		assertTrue(quoted > JapaneseSentenceBreaker.MAX_BRACKET_LENGTH);
+		assertTrue(quoted <= JapaneseSentenceBreaker.MAX_BRACKET_LENGTH + 4);
+		for (String sentence : sentences.subList(1, sentences.size())) {
+			assertEquals("文です。", sentence);
+		}
+	}
+
+	@Test
+	public void testNewlineEndsBracket() {
+		assertEquals(Arrays.asList("「開いたまま\n", "次。", "最後"),
+				sentences("「開いたまま\n次。最後"));
+	}
+
+	@Test
+	public void testRegion() {
+		char[] text = "xx前。後。yy".toCharArray();
+		JapaneseSentenceBreaker breaker = new JapaneseSentenceBreaker();
+		breaker.setText(text, 2, 4);
+		assertEquals(0, breaker.current());
+		assertEquals(2, breaker.next());
+		assertEquals(4, breaker.next());
+		assertEquals(SentenceBreaker.DONE, breaker.next());
+	}
+
+	private static List<String> sentences(String text) {
+		JapaneseSentenceBreaker breaker = new JapaneseSentenceBreaker();
+		breaker.setText(text.toCharArray(), 0, text.length());
+		List<String> sentences = new ArrayList<String>();
+		int start = breaker.current();
+		for (int end = breaker.next(); end != SentenceBreaker.DONE; end = breaker.next()) {
+			sentences.add(text.substring(start, end));
+			start = end;
+		}
+		return sentences;
+	}
+
+}